@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.storage.cache.CacheMetrics;
+import ru.yandex.practicum.filmorate.storage.cache.CacheStats;
+
+import java.util.Collection;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/cache")
+public class CacheController {
+    private final ObjectProvider<CacheMetrics> caches;
+
+    @GetMapping("/stats")
+    public Collection<CacheStats> findStats() {
+        return caches.orderedStream()
+                .map(CacheMetrics::getStats)
+                .toList();
+    }
+}
@@ -1,21 +1,31 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.dto.FilmDTO;
+import ru.yandex.practicum.filmorate.dto.ImportReportDTO;
+import ru.yandex.practicum.filmorate.dto.LikeResultDTO;
+import ru.yandex.practicum.filmorate.dto.PageDTO;
 import ru.yandex.practicum.filmorate.dto.request.FilmCreateRequest;
 import ru.yandex.practicum.filmorate.dto.request.FilmUpdateRequest;
+import ru.yandex.practicum.filmorate.dto.request.LikeRequest;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
+import java.io.InputStream;
 import java.util.Collection;
+import java.util.List;
 
 @RestController
 @RequestMapping("/films")
 public class FilmController {
     private final FilmService filmService;
+    private final JsonStreamWriter streamWriter;
 
-    public FilmController(FilmService filmService) {
+    public FilmController(FilmService filmService, JsonStreamWriter streamWriter) {
         this.filmService = filmService;
+        this.streamWriter = streamWriter;
     }
 
     @GetMapping
@@ -23,14 +33,36 @@ public class FilmController {
         return filmService.getFilmsAll();
     }
 
+    @GetMapping(params = "stream")
+    public ResponseEntity<StreamingResponseBody> streamAll(@RequestParam("stream") String format) {
+        return streamWriter.stream(format, filmService::streamFilmsAll);
+    }
+
+    @GetMapping(params = {"genreIds", "!stream"})
+    public PageDTO<FilmDTO> findByGenres(@RequestParam List<Integer> genreIds,
+                                         @RequestParam(defaultValue = "any") String match,
+                                         @RequestParam(defaultValue = "100") int limit,
+                                         @RequestParam(required = false) String cursor) {
+        return filmService.getFilmsByGenres(genreIds, match, cursor, limit);
+    }
+
+    @GetMapping(params = {"limit", "!stream", "!genreIds"})
+    public PageDTO<FilmDTO> findPage(@RequestParam int limit,
+                                     @RequestParam(required = false) String cursor) {
+        return filmService.getFilmsPage(cursor, limit);
+    }
+
     @GetMapping("/{id}")
     public FilmDTO findFilm(@PathVariable Long id) {
         return filmService.getFilmById(id);
     }
 
     @GetMapping({"/popular?count={count}", "/popular"})
-    public Collection<FilmDTO> findTopFilms(@RequestParam(defaultValue = "10") String count) {
-        return filmService.getFilmsTop(count);
+    public Collection<FilmDTO> findTopFilms(@RequestParam(defaultValue = "10") String count,
+                                            @RequestParam(required = false) Integer genreId,
+                                            @RequestParam(required = false) Integer mpaId,
+                                            @RequestParam(required = false) Integer year) {
+        return filmService.getFilmsTop(count, genreId, mpaId, year);
     }
 
     @PostMapping
@@ -39,11 +71,26 @@ public class FilmController {
         return filmService.create(createRequest);
     }
 
+    @PostMapping("/import")
+    public ImportReportDTO importFilms(InputStream body) {
+        return filmService.importFilms(body);
+    }
+
     @PutMapping
     public FilmDTO update(@RequestBody FilmUpdateRequest updateRequest) {
         return filmService.update(updateRequest);
     }
 
+    @PostMapping("/likes:batch")
+    public List<LikeResultDTO> likeAddBatch(@RequestBody List<LikeRequest> likes) {
+        return filmService.addLikes(likes);
+    }
+
+    @PostMapping("/likes:batchDelete")
+    public List<LikeResultDTO> likeRemoveBatch(@RequestBody List<LikeRequest> likes) {
+        return filmService.removeLikes(likes);
+    }
+
     @PutMapping("/{id}/like/{userId}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void likeAdd(@PathVariable("id") Long filmId,
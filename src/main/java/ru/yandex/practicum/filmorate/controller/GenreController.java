@@ -1,28 +1,34 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-import ru.yandex.practicum.filmorate.dto.GenreDTO;
-import ru.yandex.practicum.filmorate.service.FilmService;
-
-import java.util.Collection;
+import ru.yandex.practicum.filmorate.service.ReferenceDataRegistry;
 
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/genres")
 public class GenreController {
-    private final FilmService filmService;
+    private final ReferenceDataRegistry registry;
 
     @GetMapping
-    public Collection<GenreDTO> findAll() {
-        return filmService.getGenresList();
+    public ResponseEntity<byte[]> findAll() {
+        return toResponse(registry.getGenresJson());
     }
 
     @GetMapping("/{id}")
-    public GenreDTO findGenreById(@PathVariable int id) {
-        return filmService.getGenreById(id);
+    public ResponseEntity<byte[]> findGenreById(@PathVariable int id) {
+        return toResponse(registry.getGenreJson(id));
+    }
+
+    static ResponseEntity<byte[]> toResponse(ReferenceDataRegistry.Json json) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(json.eTag())
+                .body(json.body());
     }
 }
@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.zalando.logbook.HttpRequest;
+
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+/**
+ * Logbook буферизует тела запроса и ответа целиком, поэтому потоковые выгрузки
+ * (?stream=json|ndjson) не логируются. Импорт исключён через logbook.predicate.exclude.
+ */
+@Configuration
+public class LogbookConfig {
+
+    @Bean
+    public Predicate<HttpRequest> requestCondition() {
+        return request -> !isStreaming(request.getQuery());
+    }
+
+    private static boolean isStreaming(String query) {
+        return query != null && Arrays.stream(query.split("&"))
+                .anyMatch(parameter -> parameter.equals("stream") || parameter.startsWith("stream="));
+    }
+}
@@ -1,28 +1,26 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-import ru.yandex.practicum.filmorate.dto.RatingDTO;
-import ru.yandex.practicum.filmorate.service.FilmService;
-
-import java.util.Collection;
+import ru.yandex.practicum.filmorate.service.ReferenceDataRegistry;
 
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/mpa")
 public class RatingController {
-    private final FilmService filmService;
+    private final ReferenceDataRegistry registry;
 
     @GetMapping
-    public Collection<RatingDTO> findAll() {
-        return filmService.getRatingList();
+    public ResponseEntity<byte[]> findAll() {
+        return GenreController.toResponse(registry.getRatingsJson());
     }
 
     @GetMapping("/{id}")
-    public RatingDTO findRatingById(@PathVariable int id) {
-        return filmService.getRatingById(id);
+    public ResponseEntity<byte[]> findRatingById(@PathVariable int id) {
+        return GenreController.toResponse(registry.getRatingJson(id));
     }
 }
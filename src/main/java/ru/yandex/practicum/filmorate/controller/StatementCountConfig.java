@@ -0,0 +1,35 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.storage.dao.StatementCountingDataSource;
+
+import javax.sql.DataSource;
+
+/**
+ * Подсчёт запросов к БД на каждый HTTP-запрос. Включается свойством
+ * filmorate.jdbc.count-statements; результат пишется в debug-лог StatementCountFilter.
+ */
+@Configuration
+@ConditionalOnProperty(name = "filmorate.jdbc.count-statements", havingValue = "true")
+public class StatementCountConfig {
+
+    @Bean
+    public static BeanPostProcessor statementCountingDataSource() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource && !(bean instanceof StatementCountingDataSource)
+                        ? new StatementCountingDataSource(dataSource)
+                        : bean;
+            }
+        };
+    }
+
+    @Bean
+    public StatementCountFilter statementCountFilter() {
+        return new StatementCountFilter();
+    }
+}
@@ -0,0 +1,30 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import ru.yandex.practicum.filmorate.storage.dao.StatementCountingDataSource;
+
+import java.io.IOException;
+
+/**
+ * Пишет в debug-лог число запросов к БД, выполненных при обработке HTTP-запроса.
+ */
+@Slf4j
+public class StatementCountFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        StatementCountingDataSource.reset();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            log.debug("{} {}: {} запросов к БД", request.getMethod(), request.getRequestURI(),
+                    StatementCountingDataSource.count());
+        }
+    }
+}
@@ -2,22 +2,36 @@ package ru.yandex.practicum.filmorate.controller;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.dto.FilmDTO;
+import ru.yandex.practicum.filmorate.dto.FriendDTO;
+import ru.yandex.practicum.filmorate.dto.ImportReportDTO;
+import ru.yandex.practicum.filmorate.dto.PageDTO;
+import ru.yandex.practicum.filmorate.dto.SuggestionDTO;
 import ru.yandex.practicum.filmorate.dto.UserDTO;
 import ru.yandex.practicum.filmorate.dto.request.UserCreateRequest;
 import ru.yandex.practicum.filmorate.dto.request.UserUpdateRequest;
+import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.UserService;
 
+import java.io.InputStream;
 import java.util.Collection;
+import java.util.List;
 
 @Slf4j
 @RestController
 @RequestMapping("/users")
 public class UserController {
     private final UserService userService;
+    private final FilmService filmService;
+    private final JsonStreamWriter streamWriter;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, FilmService filmService, JsonStreamWriter streamWriter) {
         this.userService = userService;
+        this.filmService = filmService;
+        this.streamWriter = streamWriter;
     }
 
     @GetMapping
@@ -26,6 +40,24 @@ public class UserController {
         return userService.getUsersAll();
     }
 
+    @GetMapping(params = "stream")
+    public ResponseEntity<StreamingResponseBody> streamAll(@RequestParam("stream") String format) {
+        return streamWriter.stream(format, userService::streamUsersAll);
+    }
+
+    @GetMapping(params = {"limit", "!stream"})
+    @ResponseStatus(HttpStatus.OK)
+    public PageDTO<UserDTO> findPage(@RequestParam int limit,
+                                     @RequestParam(required = false) String cursor) {
+        return userService.getUsersPage(cursor, limit);
+    }
+
+    @PostMapping("/import")
+    @ResponseStatus(HttpStatus.OK)
+    public ImportReportDTO importUsers(InputStream body) {
+        return userService.importUsers(body);
+    }
+
     @GetMapping("/{id}")
     @ResponseStatus(HttpStatus.OK)
     public UserDTO findUser(@PathVariable Long id) {
@@ -34,10 +66,39 @@ public class UserController {
 
     @GetMapping("/{id}/friends")
     @ResponseStatus(HttpStatus.OK)
-    public Collection<UserDTO> findFriends(@PathVariable Long id) {
+    public Collection<FriendDTO> findFriends(@PathVariable Long id) {
         return userService.getFriends(id);
     }
 
+    @GetMapping("/{id}/friends/count")
+    @ResponseStatus(HttpStatus.OK)
+    public int countFriends(@PathVariable Long id) {
+        return userService.countFriends(id);
+    }
+
+    @GetMapping("/{id}/friends/suggestions")
+    @ResponseStatus(HttpStatus.OK)
+    public List<SuggestionDTO> findFriendSuggestions(@PathVariable Long id,
+                                                     @RequestParam(defaultValue = "10") int limit) {
+        return userService.getFriendSuggestions(id, limit);
+    }
+
+    @GetMapping(value = "/{id}/friends", params = "limit")
+    @ResponseStatus(HttpStatus.OK)
+    public PageDTO<FriendDTO> findFriendsPage(@PathVariable Long id,
+                                              @RequestParam int limit,
+                                              @RequestParam(required = false) String cursor) {
+        return userService.getFriendsPage(id, cursor, limit);
+    }
+
+    @GetMapping("/{id}/likes")
+    @ResponseStatus(HttpStatus.OK)
+    public PageDTO<FilmDTO> findLikedFilms(@PathVariable Long id,
+                                           @RequestParam(defaultValue = "100") int limit,
+                                           @RequestParam(required = false) String cursor) {
+        return filmService.getLikedFilms(id, cursor, limit);
+    }
+
     @GetMapping("/{id}/friends/common/{otherId}")
     @ResponseStatus(HttpStatus.OK)
     public Collection<UserDTO> findCommonFriends(@PathVariable Long id,
@@ -45,6 +106,20 @@ public class UserController {
         return userService.getFriendsMutual(id, friendId);
     }
 
+    @GetMapping("/{id}/friends/common/{otherId}/count")
+    @ResponseStatus(HttpStatus.OK)
+    public int countCommonFriends(@PathVariable Long id,
+                                  @PathVariable("otherId") Long friendId) {
+        return userService.countFriendsMutual(id, friendId);
+    }
+
+    @GetMapping("/{id}/path/{otherId}")
+    @ResponseStatus(HttpStatus.OK)
+    public List<UserDTO> findFriendshipPath(@PathVariable Long id,
+                                            @PathVariable Long otherId) {
+        return userService.getFriendshipPath(id, otherId);
+    }
+
     @PutMapping("/{id}/friends/{friendId}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void addFriend(@PathVariable Long id,
@@ -16,4 +16,6 @@ public class FilmDTO {
     private Integer duration;
     private Set<GenreDTO> genres;
     private RatingDTO mpa;
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long likeCount;
 }
@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import ru.yandex.practicum.filmorate.model.FriendshipStatus;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
+public class FriendDTO extends UserDTO {
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private FriendshipStatus status;
+}
@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Итог импорта: число записанных и отклонённых строк. Подробно перечисляются
+ * только первые MAX_REPORTED_ERRORS ошибок, чтобы отчёт не рос вместе с файлом.
+ */
+@Data
+public class ImportReportDTO {
+    public static final int MAX_REPORTED_ERRORS = 1000;
+    private long imported;
+    private long failed;
+    private List<ImportErrorDTO> errors = new ArrayList<>();
+
+    public void addImported(long count) {
+        imported += count;
+    }
+
+    public void addError(long line, String message) {
+        failed++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(new ImportErrorDTO(line, message));
+        }
+    }
+}
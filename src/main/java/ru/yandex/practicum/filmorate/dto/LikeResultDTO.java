@@ -0,0 +1,13 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import ru.yandex.practicum.filmorate.model.LikeOutcome;
+
+@Data
+@AllArgsConstructor
+public class LikeResultDTO {
+    private long filmId;
+    private long userId;
+    private LikeOutcome outcome;
+}
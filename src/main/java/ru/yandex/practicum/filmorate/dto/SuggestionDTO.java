@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
+public class SuggestionDTO extends UserDTO {
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private int mutualFriends;
+}
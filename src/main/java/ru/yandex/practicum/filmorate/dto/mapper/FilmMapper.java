@@ -35,6 +35,7 @@ public final class FilmMapper {
         );
 
         dto.setReleaseDate(film.getReleaseDate());
+        dto.setLikeCount(film.getLikeCount());
 
         return dto;
     }
@@ -54,7 +55,6 @@ public final class FilmMapper {
         );
 
         film.setDescription(request.getDescription());
-        film.setLikes(null);
 
         return film;
     }
@@ -0,0 +1,63 @@
+package ru.yandex.practicum.filmorate.dto.mapper;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import ru.yandex.practicum.filmorate.dto.PageDTO;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class PageMapper {
+    public static final int MAX_PAGE_SIZE = 500;
+    public static final int UNPAGED_LIMIT = 10_000;
+    private static final String CURSOR_PREFIX = "id:";
+
+    public static long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(CURSOR_PREFIX)) {
+                throw new IllegalArgumentException(decoded);
+            }
+            return Long.parseLong(decoded.substring(CURSOR_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Cursor = " + cursor + ". Некорректное значение курсора");
+        }
+    }
+
+    public static String encodeCursor(long id) {
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString((CURSOR_PREFIX + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static int validateLimit(int limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Limit = " + limit + ". Параметр должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        return limit;
+    }
+
+    /**
+     * Собирает страницу из выборки размером до limit + 1 строк: лишняя строка
+     * означает, что следующая страница есть, и курсор указывает на последний элемент.
+     */
+    public static <T, R> PageDTO<R> mapToPage(List<T> rows, int limit, ToLongFunction<T> id, Function<T, R> mapper) {
+        String next = null;
+        List<T> items = rows;
+
+        if (rows.size() > limit) {
+            items = rows.subList(0, limit);
+            next = encodeCursor(id.applyAsLong(items.get(limit - 1)));
+        }
+
+        return new PageDTO<>(items.stream().map(mapper).toList(), next);
+    }
+}
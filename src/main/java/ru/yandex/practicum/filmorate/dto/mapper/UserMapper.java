@@ -2,9 +2,13 @@ package ru.yandex.practicum.filmorate.dto.mapper;
 
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
+import ru.yandex.practicum.filmorate.dto.FriendDTO;
+import ru.yandex.practicum.filmorate.dto.SuggestionDTO;
 import ru.yandex.practicum.filmorate.dto.UserDTO;
 import ru.yandex.practicum.filmorate.dto.request.UserCreateRequest;
 import ru.yandex.practicum.filmorate.dto.request.UserUpdateRequest;
+import ru.yandex.practicum.filmorate.model.Friend;
+import ru.yandex.practicum.filmorate.model.Suggestion;
 import ru.yandex.practicum.filmorate.model.User;
 
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
@@ -20,6 +24,32 @@ public final class UserMapper {
         return dto;
     }
 
+    public static FriendDTO mapToFriendDto(Friend friend) {
+        User user = friend.getUser();
+        FriendDTO dto = new FriendDTO();
+        dto.setId(user.getId());
+        dto.setLogin(user.getLogin());
+        dto.setEmail(user.getEmail());
+        dto.setName(user.getName());
+        dto.setBirthday(user.getBirthday());
+        dto.setStatus(friend.getStatus());
+
+        return dto;
+    }
+
+    public static SuggestionDTO mapToSuggestionDto(Suggestion suggestion) {
+        User user = suggestion.getUser();
+        SuggestionDTO dto = new SuggestionDTO();
+        dto.setId(user.getId());
+        dto.setLogin(user.getLogin());
+        dto.setEmail(user.getEmail());
+        dto.setName(user.getName());
+        dto.setBirthday(user.getBirthday());
+        dto.setMutualFriends(suggestion.getMutualFriends());
+
+        return dto;
+    }
+
     public static User mapToUser(UserCreateRequest request) {
         User user = new User();
         user.setLogin(request.getLogin());
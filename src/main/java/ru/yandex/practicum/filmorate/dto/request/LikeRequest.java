@@ -0,0 +1,9 @@
+package ru.yandex.practicum.filmorate.dto.request;
+
+import lombok.Data;
+
+@Data
+public class LikeRequest {
+    private Long filmId;
+    private Long userId;
+}
@@ -14,5 +14,5 @@ public class Film {
     private Integer duration;
     private Set<Genre> genres;
     private Rating rating;
-    private Set<Long> likes;
+    private long likeCount;
 }
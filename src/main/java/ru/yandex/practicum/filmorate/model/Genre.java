@@ -2,6 +2,10 @@ package ru.yandex.practicum.filmorate.model;
 
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
 public enum Genre {
     COMEDY("Комедия", 1),
     DRAMA("Драма", 2),
@@ -27,6 +31,31 @@ public enum Genre {
         return id;
     }
 
+    /**
+     * Бит жанра в колонке films.genre_mask.
+     */
+    public int mask() {
+        return 1 << (id - 1);
+    }
+
+    public static int toMask(Collection<Genre> genres) {
+        int mask = 0;
+        for (Genre genre : genres) {
+            mask |= genre.mask();
+        }
+        return mask;
+    }
+
+    public static Set<Genre> fromMask(int mask) {
+        Set<Genre> genres = EnumSet.noneOf(Genre.class);
+        for (Genre genre : values()) {
+            if ((mask & genre.mask()) != 0) {
+                genres.add(genre);
+            }
+        }
+        return genres;
+    }
+
     public static Genre from(String genre) {
         return switch (genre.toLowerCase()) {
             case "comedy", "комедия" -> COMEDY;
@@ -0,0 +1,13 @@
+package ru.yandex.practicum.filmorate.model;
+
+/**
+ * Результат обработки одного лайка из пакета.
+ */
+public enum LikeOutcome {
+    ADDED,
+    REMOVED,
+    ALREADY_LIKED,
+    NOT_LIKED,
+    FILM_NOT_FOUND,
+    USER_NOT_FOUND
+}
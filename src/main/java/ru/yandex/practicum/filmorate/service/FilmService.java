@@ -1,87 +1,157 @@
 package ru.yandex.practicum.filmorate.service;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.dto.FilmDTO;
-import ru.yandex.practicum.filmorate.dto.GenreDTO;
-import ru.yandex.practicum.filmorate.dto.RatingDTO;
+import ru.yandex.practicum.filmorate.dto.ImportReportDTO;
+import ru.yandex.practicum.filmorate.dto.LikeResultDTO;
+import ru.yandex.practicum.filmorate.dto.PageDTO;
 import ru.yandex.practicum.filmorate.dto.mapper.FilmMapper;
+import ru.yandex.practicum.filmorate.dto.mapper.PageMapper;
 import ru.yandex.practicum.filmorate.dto.request.FilmCreateRequest;
 import ru.yandex.practicum.filmorate.dto.request.FilmUpdateRequest;
+import ru.yandex.practicum.filmorate.dto.request.LikeRequest;
+import ru.yandex.practicum.filmorate.exception.InternalServerException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
-import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.LikeOutcome;
+import ru.yandex.practicum.filmorate.model.Rating;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
 
+import java.io.InputStream;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 public class FilmService {
     private static final LocalDate FIRST_FILM_RELEASE_DATE = LocalDate.of(1895, 12, 28);
+    private static final int MAX_LIKE_BATCH_SIZE = 10_000;
+    private static final int IMPORT_CHUNK_SIZE = 1000;
+    private static final int MAX_NAME_LENGTH = 40;
     @Qualifier("FilmDbStorage")
     private final FilmStorage filmStorage;
     @Qualifier("UserDbStorage")
     private final UserStorage userStorage;
+    private final PopularityLeaderboard leaderboard;
+    private final LikeWriteBuffer likeBuffer;
+    private final NdjsonImporter importer;
 
     @Autowired
-    public FilmService(FilmStorage filmStorage, UserStorage userStorage) {
+    public FilmService(FilmStorage filmStorage, UserStorage userStorage, PopularityLeaderboard leaderboard,
+                       ObjectProvider<LikeWriteBuffer> likeBuffer, NdjsonImporter importer) {
         this.filmStorage = filmStorage;
         this.userStorage = userStorage;
+        this.leaderboard = leaderboard;
+        this.likeBuffer = likeBuffer.getIfAvailable();
+        this.importer = importer;
     }
 
     public void addLikeFilm(Long filmId, Long userId) {
-        Film film = filmStorage.getFilmById(filmId);
-        if (film == null) {
-            throw new NotFoundException("Фильм с id = " + filmId + " не найден");
-        }
-        User user = userStorage.getUserById(userId);
-        if (user == null) {
-            throw new NotFoundException("Пользователь с id = " + userId + " не найден");
-        }
-        Set<Long> ratingList;
-
-        if (film.getLikes() == null) {
-            ratingList = new HashSet<>();
-        } else {
-            ratingList = film.getLikes();
-        }
-
-        if (ratingList.contains(user.getId())) {
-            throw new ValidationException("Лайк пользователя " + user.getLogin()
-                    + " уже добавлен фильму " + film.getName());
+        if (likeBuffer != null) {
+            if (isLikedWithPending(filmId, userId)) {
+                throw new ValidationException("Лайк пользователя с id = " + userId
+                        + " уже добавлен фильму c id = " + filmId);
+            }
+            likeBuffer.submit(filmId, userId, true);
+            return;
         }
-        ratingList.add(user.getId());
-        film.setLikes(ratingList);
-        filmStorage.setLikeToDb(filmId, userId);
+        leaderboard.write(filmId, () -> {
+            filmStorage.setLikeToDb(filmId, userId);
+            leaderboard.adjust(filmId, 1);
+        });
     }
 
     public Collection<FilmDTO> getFilmsAll() {
-        return filmStorage.getFilms()
+        return filmStorage.getFilms(0, PageMapper.UNPAGED_LIMIT)
                 .stream()
-                .map(FilmMapper::mapToFilmDTO)
+                .map(this::mapToFilmDto)
                 .collect(Collectors.toList());
     }
 
+    public void streamFilmsAll(Consumer<FilmDTO> consumer) {
+        filmStorage.streamFilms(film -> consumer.accept(mapToFilmDto(film)));
+    }
+
+    public PageDTO<FilmDTO> getFilmsByGenres(List<Integer> genreIds, String match, String cursor, int limit) {
+        PageMapper.validateLimit(limit);
+        if (genreIds.isEmpty()) {
+            throw new ValidationException("Должен быть указан хотя бы один жанр");
+        }
+        boolean matchAll = switch (match.toLowerCase()) {
+            case "any" -> false;
+            case "all" -> true;
+            default -> throw new ValidationException("Match = " + match + ". Допустимые значения: any, all");
+        };
+        Set<Genre> genres = genreIds.stream()
+                .map(Genre::from)
+                .collect(Collectors.toCollection(() -> EnumSet.noneOf(Genre.class)));
+
+        return PageMapper.mapToPage(
+                filmStorage.getFilmsByGenres(genres, matchAll, PageMapper.decodeCursor(cursor), limit + 1),
+                limit,
+                Film::getId,
+                this::mapToFilmDto
+        );
+    }
+
+    public PageDTO<FilmDTO> getFilmsPage(String cursor, int limit) {
+        PageMapper.validateLimit(limit);
+        return PageMapper.mapToPage(
+                filmStorage.getFilms(PageMapper.decodeCursor(cursor), limit + 1),
+                limit,
+                Film::getId,
+                this::mapToFilmDto
+        );
+    }
+
     public FilmDTO getFilmById(Long id) {
-        return FilmMapper.mapToFilmDTO(filmStorage.getFilmById(id));
+        Film film = filmStorage.getFilmById(id);
+        if (film == null) {
+            throw new NotFoundException("Фильм с id = " + id + " не найден");
+        }
+        return mapToFilmDto(film);
     }
 
     public FilmDTO create(FilmCreateRequest createRequest) {
-        if (createRequest.getName() == null || createRequest.getName().isBlank()) {
-            throw new ValidationException("Название фильма должно быть указано");
-        }
-        validateDate(createRequest.getReleaseDate());
-        validateDuration(createRequest.getDuration());
-        validateDescription(createRequest.getDescription());
+        Film newFilm = filmStorage.create(mapToValidFilm(createRequest));
+        leaderboard.index(newFilm);
+        return mapToFilmDto(newFilm);
+    }
 
-        Film newFilm = FilmMapper.mapToFilm(createRequest);
-        newFilm = filmStorage.create(newFilm);
-        return FilmMapper.mapToFilmDTO(newFilm);
+    /**
+     * Импорт фильмов из NDJSON: каждая строка проверяется по тем же правилам, что и при create,
+     * корректные фильмы записываются пачками по IMPORT_CHUNK_SIZE. Если база отклонила пачку,
+     * все её строки попадают в отчёт, а импорт продолжается со следующей пачки.
+     */
+    public ImportReportDTO importFilms(InputStream body) {
+        return importer.importLines(body, FilmCreateRequest.class, IMPORT_CHUNK_SIZE, (chunk, report) -> {
+            Map<Long, Film> films = new LinkedHashMap<>();
+            chunk.forEach((line, createRequest) -> {
+                try {
+                    films.put(line, mapToValidFilm(createRequest));
+                } catch (ValidationException | NotFoundException e) {
+                    report.addError(line, e.getMessage());
+                }
+            });
+
+            try {
+                filmStorage.createAll(new ArrayList<>(films.values())).forEach(leaderboard::index);
+            } catch (DataAccessException | InternalServerException e) {
+                String message = "Пачка строк не записана: " + getFailureMessage(e);
+                films.keySet().forEach(line -> report.addError(line, message));
+                return;
+            }
+            report.addImported(films.size());
+        });
     }
 
     public FilmDTO update(FilmUpdateRequest updateRequest) {
@@ -98,50 +168,61 @@ public class FilmService {
         validateDate(updateRequest.getReleaseDate());
         validateDuration(updateRequest.getDuration());
         validateDescription(updateRequest.getDescription());
+        validateName(updateRequest.getName());
 
-        filmStorage.getFilms()
-                .stream()
-                .filter(film ->
-                        (film.getName().equals(updateRequest.getName()) && (film.getId() != updateRequest.getId())))
-                .findFirst()
-                .ifPresent(film -> {
-                    throw new ValidationException("Фильм с названием " + updateRequest.getName()
-                            + " уже добавлен под id " + film.getId());
-                });
+        Long sameTitleId = filmStorage.findIdByTitle(updateRequest.getName(), updateRequest.getId());
+        if (sameTitleId != null) {
+            throw new ValidationException("Фильм с названием " + updateRequest.getName()
+                    + " уже добавлен под id " + sameTitleId);
+        }
 
         updatedFilm = FilmMapper.updateFilmFields(updatedFilm, updateRequest);
+        if (!updateRequest.hasGenres()) {
+            updatedFilm.setGenres(null);
+        }
+
+        updatedFilm = filmStorage.update(updatedFilm);
+        leaderboard.index(updatedFilm);
 
-        return FilmMapper.mapToFilmDTO(filmStorage.update(updatedFilm));
+        return mapToFilmDto(updatedFilm);
     }
 
     public void removeLikeFilm(Long filmId, Long userId) {
-        Film film = filmStorage.getFilmById(filmId);
-        if (film == null) {
-            throw new NotFoundException("Фильм с id = " + filmId + " не найден");
-        }
-        User user = userStorage.getUserById(userId);
-        if (user == null) {
-            throw new NotFoundException("Пользователь с id = " + userId + " не найден");
+        if (likeBuffer != null) {
+            if (!isLikedWithPending(filmId, userId)) {
+                throw new NotFoundException("Пользователь с id = " + userId
+                        + " не ставил лайк фильму c id = " + filmId);
+            }
+            likeBuffer.submit(filmId, userId, false);
+            return;
         }
+        leaderboard.write(filmId, () -> {
+            filmStorage.deleteLikeFromDb(filmId, userId);
+            leaderboard.adjust(filmId, -1);
+        });
+    }
 
-        if (isUserAlreadyLiked(user)) {
-            if (!film.getLikes().contains(user.getId())) {
-                Long likedFilmId = filmStorage.getFilms().stream()
-                        .filter(filmFinder -> filmFinder.getLikes().contains(user.getId()))
-                        .map(Film::getId)
-                        .findFirst().orElse(null);
-                throw new ValidationException("Id фильма = " + film.getId()
-                        + ".\nПользователь с id = " + user.getId() + " поставил лайк фильму c id = " + likedFilmId);
-            }
+    public List<LikeResultDTO> addLikes(List<LikeRequest> requests) {
+        List<Like> likes = mapToLikes(requests);
+        return leaderboard.write(filmIds(likes), () -> mapToResults(likes, filmStorage.setLikesToDb(likes)));
+    }
 
-            filmStorage.deleteLikeFromDb(filmId, userId);
-            film.getLikes().remove(user.getId());
-            return;
+    public List<LikeResultDTO> removeLikes(List<LikeRequest> requests) {
+        List<Like> likes = mapToLikes(requests);
+        return leaderboard.write(filmIds(likes), () -> mapToResults(likes, filmStorage.deleteLikesFromDb(likes)));
+    }
+
+    public PageDTO<FilmDTO> getLikedFilms(Long userId, String cursor, int limit) {
+        PageMapper.validateLimit(limit);
+        if (userStorage.getUserById(userId) == null) {
+            throw new NotFoundException("Пользователь с id = " + userId + " не найден");
         }
-        throw new NotFoundException("Пользователь с id = " + user.getId() + " не ставил лайк");
+
+        List<Long> filmIds = filmStorage.getLikedFilmIds(userId, PageMapper.decodeCursor(cursor), limit + 1);
+        return PageMapper.mapToPage(filmStorage.getFilmsByIds(filmIds), limit, Film::getId, this::mapToFilmDto);
     }
 
-    public Collection<FilmDTO> getFilmsTop(String count) {
+    public Collection<FilmDTO> getFilmsTop(String count, Integer genreId, Integer mpaId, Integer year) {
         long topCount;
 
         try {
@@ -153,49 +234,95 @@ public class FilmService {
             throw new ValidationException("Count = " + count + ". Параметр должен быть целым положительным числом");
         }
 
-        return filmStorage.getFilms().stream()
-                .sorted(Comparator.comparingInt((Film film) ->
-                        Optional.ofNullable(film.getLikes())
-                                .map(Set::size)
-                                .orElse(0)).reversed())
-                .limit(topCount)
-                .map(FilmMapper::mapToFilmDTO)
+        int limit = (int) Math.min(topCount, PageMapper.UNPAGED_LIMIT);
+        Genre genre = genreId == null ? null : Genre.from(genreId);
+        Rating rating = mpaId == null ? null : Rating.from(mpaId);
+
+        List<Film> films = leaderboard.isReady()
+                ? filmStorage.getFilmsByIds(leaderboard.top(limit, genre, rating, year))
+                : filmStorage.getTopFilms(limit, genre, rating, year);
+
+        return films.stream()
+                .map(this::mapToFilmDto)
                 .collect(Collectors.toList());
     }
 
-    public Collection<RatingDTO> getRatingList() {
-        return filmStorage.getRatingList()
-                .stream()
-                .sorted(Comparator.comparingInt(RatingDTO::getId))
-                .toList();
-    }
+    /**
+     * Проверяет существование фильма и пользователя и наличие лайка
+     * с учётом событий, ещё не записанных буфером.
+     */
+    private boolean isLikedWithPending(long filmId, long userId) {
+        if (filmStorage.getFilmById(filmId) == null) {
+            throw new NotFoundException("Фильм с id = " + filmId + " не найден");
+        }
+        if (userStorage.getUserById(userId) == null) {
+            throw new NotFoundException("Пользователь с id = " + userId + " не найден");
+        }
 
-    public RatingDTO getRatingById(int id) {
-        RatingDTO dto = filmStorage.getRatingById(id);
+        Boolean pending = likeBuffer.pendingState(filmId, userId);
+        return pending != null ? pending : filmStorage.isLiked(filmId, userId);
+    }
 
-        if (dto != null) {
-            return  dto;
+    /**
+     * Все ответы с фильмами собираются здесь: к счётчику из БД добавляются лайки,
+     * ещё не записанные буфером.
+     */
+    private FilmDTO mapToFilmDto(Film film) {
+        FilmDTO dto = FilmMapper.mapToFilmDTO(film);
+        if (likeBuffer != null) {
+            dto.setLikeCount(dto.getLikeCount() + likeBuffer.pendingDelta(film.getId()));
         }
-        throw new NotFoundException("MPA с id " + id + " не найден");
+        return dto;
     }
 
-    public Collection<GenreDTO> getGenresList() {
-        return filmStorage.getGenresList();
+    private List<Like> mapToLikes(List<LikeRequest> requests) {
+        if (requests == null) {
+            throw new ValidationException("Список лайков должен быть указан");
+        }
+        if (requests.size() > MAX_LIKE_BATCH_SIZE) {
+            throw new ValidationException("Пакет содержит " + requests.size()
+                    + " лайков, допускается не более " + MAX_LIKE_BATCH_SIZE);
+        }
+
+        List<Like> likes = new ArrayList<>(requests.size());
+        for (LikeRequest request : requests) {
+            if (request == null || request.getFilmId() == null || request.getUserId() == null) {
+                throw new ValidationException("Для каждого лайка должны быть указаны filmId и userId");
+            }
+            likes.add(new Like(request.getFilmId(), request.getUserId()));
+        }
+        return likes;
     }
 
-    public GenreDTO getGenreById(int id) {
-        GenreDTO dto = filmStorage.getGenreById(id);
+    private static List<Long> filmIds(List<Like> likes) {
+        return likes.stream().map(Like::getFilmId).toList();
+    }
 
-        if (dto != null) {
-            return  dto;
+    private List<LikeResultDTO> mapToResults(List<Like> likes, List<LikeOutcome> outcomes) {
+        List<LikeResultDTO> results = new ArrayList<>(likes.size());
+        for (int i = 0; i < likes.size(); i++) {
+            Like like = likes.get(i);
+            LikeOutcome outcome = outcomes.get(i);
+            if (outcome == LikeOutcome.ADDED) {
+                leaderboard.adjust(like.getFilmId(), 1);
+            } else if (outcome == LikeOutcome.REMOVED) {
+                leaderboard.adjust(like.getFilmId(), -1);
+            }
+            results.add(new LikeResultDTO(like.getFilmId(), like.getUserId(), outcome));
         }
-        throw new NotFoundException("Жанр с id " + id + " не найден");
-
+        return results;
     }
 
-    private boolean isUserAlreadyLiked(User user) {
-        return filmStorage.getFilms().stream()
-                .anyMatch(film -> film.getLikes() != null && film.getLikes().contains(user.getId()));
+    private Film mapToValidFilm(FilmCreateRequest createRequest) {
+        if (createRequest == null || createRequest.getName() == null || createRequest.getName().isBlank()) {
+            throw new ValidationException("Название фильма должно быть указано");
+        }
+        validateName(createRequest.getName());
+        validateDate(createRequest.getReleaseDate());
+        validateDuration(createRequest.getDuration());
+        validateDescription(createRequest.getDescription());
+
+        return FilmMapper.mapToFilm(createRequest);
     }
 
     private void validateDate(LocalDate date) {
@@ -210,6 +337,18 @@ public class FilmService {
         }
     }
 
+    private void validateName(String name) {
+        if (name != null && name.length() > MAX_NAME_LENGTH) {
+            throw new ValidationException("Название фильма должно быть не более " + MAX_NAME_LENGTH + " символов");
+        }
+    }
+
+    private String getFailureMessage(RuntimeException e) {
+        return e instanceof DataAccessException dataAccess
+                ? dataAccess.getMostSpecificCause().getMessage()
+                : e.getMessage();
+    }
+
     private void validateDescription(String description) {
         if (description != null && description.length() > 200) {
             throw new ValidationException("Поле описание должно быть не более 200 символов");
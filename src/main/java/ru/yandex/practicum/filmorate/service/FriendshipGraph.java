@@ -0,0 +1,395 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.FriendshipStatus;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Граф дружбы в памяти в формате CSR: отсортированные id пользователей, смещения их строк
+ * и общий массив id друзей, статус связи хранится одним битом на ребро. Загружается из БД
+ * при старте; изменения дружбы копируют только строку затронутого пользователя в оверлей,
+ * который сливается с основным графом после compact-threshold изменённых строк.
+ * Включается свойством filmorate.graph.enabled.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "filmorate.graph.enabled", havingValue = "true", matchIfMissing = true)
+public class FriendshipGraph {
+    private static final Row EMPTY_ROW = new Row(new long[0], 0, 0, new long[0]);
+    private final UserStorage userStorage;
+    private final int compactThreshold;
+    private final ConcurrentHashMap<Long, Row> overlay = new ConcurrentHashMap<>();
+    private volatile Csr base = Csr.EMPTY;
+    private volatile boolean ready;
+
+    public FriendshipGraph(UserStorage userStorage,
+                           @Value("${filmorate.graph.compact-threshold:10000}") int compactThreshold) {
+        this.userStorage = userStorage;
+        this.compactThreshold = compactThreshold;
+    }
+
+    @PostConstruct
+    public synchronized void load() {
+        ready = false;
+        CsrBuilder builder = new CsrBuilder();
+        userStorage.streamFriendships(builder::add);
+
+        base = builder.build();
+        overlay.clear();
+        ready = true;
+        log.info("Граф дружбы загружен: {} пользователей, {} связей", base.nodes.length, base.targets.length);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int degree(long userId) {
+        return row(userId).size();
+    }
+
+    /**
+     * До limit id друзей больше afterId в порядке возрастания.
+     */
+    public long[] friends(long userId, long afterId, int limit) {
+        Row row = row(userId);
+        int from = row.lowerBound(afterId + 1);
+        return Arrays.copyOfRange(row.targets, from, Math.min(row.to, from + Math.max(limit, 0)));
+    }
+
+    /**
+     * Id друзей с подтверждённой дружбой в порядке возрастания.
+     */
+    public long[] confirmedFriends(long userId) {
+        Row row = row(userId);
+        long[] result = new long[row.size()];
+        int count = 0;
+        for (int i = row.from; i < row.to; i++) {
+            if (row.isConfirmed(i)) {
+                result[count++] = row.targets[i];
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Статус связи userId -> friendId или null, если связи нет.
+     */
+    public FriendshipStatus status(long userId, long friendId) {
+        Row row = row(userId);
+        int index = row.lowerBound(friendId);
+        if (index == row.to || row.targets[index] != friendId) {
+            return null;
+        }
+        return row.isConfirmed(index) ? FriendshipStatus.CONFIRMED : FriendshipStatus.UNCONFIRMED;
+    }
+
+    public long[] mutual(long userId, long otherId) {
+        Row first = row(userId);
+        Row second = row(otherId);
+        long[] result = new long[Math.min(first.size(), second.size())];
+        int count = 0;
+
+        int i = first.from;
+        int j = second.from;
+        while (i < first.to && j < second.to) {
+            long a = first.targets[i];
+            long b = second.targets[j];
+            if (a == b) {
+                result[count++] = a;
+                i++;
+                j++;
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    public int countMutual(long userId, long otherId) {
+        Row first = row(userId);
+        Row second = row(otherId);
+        int count = 0;
+
+        int i = first.from;
+        int j = second.from;
+        while (i < first.to && j < second.to) {
+            long a = first.targets[i];
+            long b = second.targets[j];
+            if (a == b) {
+                count++;
+                i++;
+                j++;
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Друзья друзей, которых нет среди друзей userId, ранжированные по числу общих друзей
+     * (при равенстве меньший id выше). Разворачиваются не больше maxExpandedFriends первых
+     * друзей; кандидаты сортируются одним массивом и считаются по сериям, top-limit
+     * отбирается кучей размера limit.
+     */
+    public Map<Long, Integer> suggestions(long userId, int maxExpandedFriends, int limit) {
+        Row own = row(userId);
+        int expanded = Math.min(own.size(), Math.max(maxExpandedFriends, 0));
+        Row[] rows = new Row[expanded];
+        int total = 0;
+        for (int i = 0; i < expanded; i++) {
+            rows[i] = row(own.targets[own.from + i]);
+            total += rows[i].size();
+        }
+
+        long[] candidates = new long[total];
+        int count = 0;
+        for (Row row : rows) {
+            for (int i = row.from; i < row.to; i++) {
+                long candidate = row.targets[i];
+                if (candidate != userId && !own.contains(candidate)) {
+                    candidates[count++] = candidate;
+                }
+            }
+        }
+        Arrays.sort(candidates, 0, count);
+
+        PriorityQueue<long[]> top = new PriorityQueue<>(Math.max(limit, 1) + 1, (a, b) ->
+                a[1] != b[1] ? Long.compare(a[1], b[1]) : Long.compare(b[0], a[0]));
+        for (int i = 0; i < count; ) {
+            int j = i;
+            while (j < count && candidates[j] == candidates[i]) {
+                j++;
+            }
+            top.offer(new long[]{candidates[i], j - i});
+            if (top.size() > limit) {
+                top.poll();
+            }
+            i = j;
+        }
+
+        long[][] ranked = new long[top.size()][];
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            ranked[i] = top.poll();
+        }
+        Map<Long, Integer> result = new LinkedHashMap<>();
+        for (long[] candidate : ranked) {
+            result.put(candidate[0], (int) candidate[1]);
+        }
+        return result;
+    }
+
+    /**
+     * Повторяет UserStorage.addFieldToFriendship: добавляет связь или меняет её статус.
+     */
+    public synchronized void put(long userId, long friendId, FriendshipStatus status) {
+        Row row = row(userId);
+        int index = row.lowerBound(friendId);
+        boolean exists = index < row.to && row.targets[index] == friendId;
+        int position = index - row.from;
+        int size = row.size() + (exists ? 0 : 1);
+
+        long[] targets = new long[size];
+        long[] confirmed = new long[words(size)];
+        for (int i = 0, source = row.from; i < size; i++) {
+            if (i == position) {
+                targets[i] = friendId;
+                if (status == FriendshipStatus.CONFIRMED) {
+                    confirmed[i >>> 6] |= 1L << i;
+                }
+                if (exists) {
+                    source++;
+                }
+                continue;
+            }
+            targets[i] = row.targets[source];
+            if (row.isConfirmed(source)) {
+                confirmed[i >>> 6] |= 1L << i;
+            }
+            source++;
+        }
+
+        overlay.put(userId, new Row(targets, 0, size, confirmed));
+        compactIfNeeded();
+    }
+
+    /**
+     * Повторяет UserStorage.deleteFieldFromFriendship: удаляет связь, а встречную
+     * подтверждённую связь переводит в неподтверждённую.
+     */
+    public synchronized void remove(long userId, long friendId, FriendshipStatus status) {
+        Row row = row(userId);
+        int index = row.lowerBound(friendId);
+        if (index < row.to && row.targets[index] == friendId) {
+            int size = row.size() - 1;
+            long[] targets = new long[size];
+            long[] confirmed = new long[words(size)];
+            for (int i = 0, source = row.from; i < size; i++, source++) {
+                if (source == index) {
+                    source++;
+                }
+                targets[i] = row.targets[source];
+                if (row.isConfirmed(source)) {
+                    confirmed[i >>> 6] |= 1L << i;
+                }
+            }
+            overlay.put(userId, new Row(targets, 0, size, confirmed));
+        }
+
+        if (status == FriendshipStatus.CONFIRMED) {
+            put(friendId, userId, FriendshipStatus.UNCONFIRMED);
+        } else {
+            compactIfNeeded();
+        }
+    }
+
+    /**
+     * Оценка занимаемой памяти в байтах: массивы основного графа и строки оверлея.
+     */
+    public long memoryBytes() {
+        Csr csr = base;
+        long bytes = 16L * 4 + 8L * csr.nodes.length + 4L * csr.offsets.length
+                + 8L * csr.targets.length + 8L * csr.confirmed.length;
+        for (Row row : overlay.values()) {
+            bytes += 64 + 8L * row.targets.length + 8L * row.confirmed.length;
+        }
+        return bytes;
+    }
+
+    private Row row(long userId) {
+        Row row = overlay.get(userId);
+        return row != null ? row : base.row(userId);
+    }
+
+    private void compactIfNeeded() {
+        if (overlay.size() < compactThreshold) {
+            return;
+        }
+
+        Csr csr = base;
+        Map<Long, Row> rows = new TreeMap<>();
+        for (int i = 0; i < csr.nodes.length; i++) {
+            rows.put(csr.nodes[i], csr.row(i));
+        }
+        rows.putAll(overlay);
+
+        CsrBuilder builder = new CsrBuilder();
+        rows.forEach((userId, row) -> {
+            for (int i = row.from; i < row.to; i++) {
+                builder.add(userId, row.targets[i],
+                        row.isConfirmed(i) ? FriendshipStatus.CONFIRMED : FriendshipStatus.UNCONFIRMED);
+            }
+        });
+
+        base = builder.build();
+        overlay.clear();
+    }
+
+    private static int words(int bits) {
+        return (bits + 63) >>> 6;
+    }
+
+    /**
+     * Строка смежности: targets[from, to) отсортированы, бит i в confirmed
+     * относится к targets[i].
+     */
+    private record Row(long[] targets, int from, int to, long[] confirmed) {
+        int size() {
+            return to - from;
+        }
+
+        boolean isConfirmed(int index) {
+            return (confirmed[index >>> 6] & (1L << index)) != 0;
+        }
+
+        boolean contains(long id) {
+            int index = lowerBound(id);
+            return index < to && targets[index] == id;
+        }
+
+        int lowerBound(long id) {
+            int low = from;
+            int high = to;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (targets[middle] < id) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+
+    private record Csr(long[] nodes, int[] offsets, long[] targets, long[] confirmed) {
+        static final Csr EMPTY = new Csr(new long[0], new int[]{0}, new long[0], new long[0]);
+
+        Row row(long userId) {
+            int index = Arrays.binarySearch(nodes, userId);
+            return index < 0 ? EMPTY_ROW : row(index);
+        }
+
+        Row row(int index) {
+            return new Row(targets, offsets[index], offsets[index + 1], confirmed);
+        }
+    }
+
+    /**
+     * Собирает CSR из рёбер, отсортированных по (user_id, friend_id).
+     */
+    private static class CsrBuilder {
+        private long[] nodes = new long[16];
+        private int[] offsets = new int[17];
+        private long[] targets = new long[16];
+        private long[] confirmed = new long[1];
+        private int nodeCount;
+        private int edgeCount;
+
+        void add(long userId, long friendId, FriendshipStatus status) {
+            if (nodeCount == 0 || nodes[nodeCount - 1] != userId) {
+                if (nodeCount == nodes.length) {
+                    nodes = Arrays.copyOf(nodes, nodeCount * 2);
+                    offsets = Arrays.copyOf(offsets, nodeCount * 2 + 1);
+                }
+                nodes[nodeCount] = userId;
+                offsets[nodeCount] = edgeCount;
+                nodeCount++;
+            }
+
+            if (edgeCount == targets.length) {
+                targets = Arrays.copyOf(targets, edgeCount * 2);
+                confirmed = Arrays.copyOf(confirmed, words(edgeCount * 2));
+            }
+            targets[edgeCount] = friendId;
+            if (status == FriendshipStatus.CONFIRMED) {
+                confirmed[edgeCount >>> 6] |= 1L << edgeCount;
+            }
+            edgeCount++;
+            offsets[nodeCount] = edgeCount;
+        }
+
+        Csr build() {
+            int[] rowOffsets = Arrays.copyOf(offsets, nodeCount + 1);
+            rowOffsets[nodeCount] = edgeCount;
+            return new Csr(Arrays.copyOf(nodes, nodeCount), rowOffsets,
+                    Arrays.copyOf(targets, edgeCount), Arrays.copyOf(confirmed, words(edgeCount)));
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.FriendshipStatus;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Кратчайшая цепочка подтверждённой дружбы между двумя пользователями. Подтверждённая
+ * дружба симметрична, поэтому поиск в ширину идёт навстречу с обеих сторон, каждый раз
+ * расширяя меньший фронт целиком: через граф дружбы в памяти, если он загружен, иначе
+ * одним пакетным запросом к friendship на фронт. Глубина и число посещённых
+ * пользователей ограничены свойствами filmorate.friends.path.*.
+ */
+@Component
+public class FriendshipPathFinder {
+    private final UserStorage userStorage;
+    private final FriendshipGraph graph;
+    private final int maxDepth;
+    private final int maxVisited;
+
+    public FriendshipPathFinder(UserStorage userStorage,
+                                ObjectProvider<FriendshipGraph> graph,
+                                @Value("${filmorate.friends.path.max-depth:6}") int maxDepth,
+                                @Value("${filmorate.friends.path.max-visited:1000000}") int maxVisited) {
+        this.userStorage = userStorage;
+        this.graph = graph.getIfAvailable();
+        this.maxDepth = maxDepth;
+        this.maxVisited = maxVisited;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Id пользователей цепочки от userId до otherId включительно или пустой список,
+     * если цепочки нет в пределах ограничений.
+     */
+    public List<Long> findPath(long userId, long otherId) {
+        if (userId == otherId) {
+            return List.of(userId);
+        }
+
+        Side forward = new Side(userId);
+        Side backward = new Side(otherId);
+        while (!forward.frontier.isEmpty() && !backward.frontier.isEmpty()
+                && forward.depth + backward.depth < maxDepth) {
+            boolean forwardSmaller = forward.frontier.size() <= backward.frontier.size();
+            Side current = forwardSmaller ? forward : backward;
+            Side opposite = forwardSmaller ? backward : forward;
+
+            Long meeting = expand(current, opposite);
+            if (meeting != null) {
+                return buildPath(forward, backward, meeting);
+            }
+            if (forward.visits.size() + backward.visits.size() > maxVisited) {
+                return List.of();
+            }
+        }
+        return List.of();
+    }
+
+    /**
+     * Расширяет фронт на один уровень целиком и возвращает точку встречи с наименьшей
+     * суммарной глубиной или null. Уровень дорабатывается до конца: первая найденная
+     * встреча не обязательно даёт кратчайшую цепочку.
+     */
+    private Long expand(Side current, Side opposite) {
+        List<Long> next = new ArrayList<>();
+        int depth = current.depth + 1;
+        Long[] meeting = {null};
+        int[] best = {Integer.MAX_VALUE};
+
+        forEachConfirmedFriend(current.frontier, (from, to, status) -> {
+            if (current.visits.containsKey(to)) {
+                return;
+            }
+            current.visits.put(to, new Visit(from, depth));
+            next.add(to);
+
+            Visit other = opposite.visits.get(to);
+            if (other != null && other.depth < best[0]) {
+                best[0] = other.depth;
+                meeting[0] = to;
+            }
+        });
+
+        current.frontier = next;
+        current.depth = depth;
+        return meeting[0];
+    }
+
+    private void forEachConfirmedFriend(List<Long> frontier, UserStorage.FriendshipConsumer consumer) {
+        if (graph != null && graph.isReady()) {
+            for (long userId : frontier) {
+                for (long friendId : graph.confirmedFriends(userId)) {
+                    consumer.accept(userId, friendId, FriendshipStatus.CONFIRMED);
+                }
+            }
+            return;
+        }
+
+        userStorage.streamFriendships(frontier, (userId, friendId, status) -> {
+            if (status == FriendshipStatus.CONFIRMED) {
+                consumer.accept(userId, friendId, status);
+            }
+        });
+    }
+
+    private static List<Long> buildPath(Side forward, Side backward, long meeting) {
+        List<Long> path = new ArrayList<>();
+        for (long id = meeting; ; id = forward.visits.get(id).parent) {
+            path.add(id);
+            if (forward.visits.get(id).depth == 0) {
+                break;
+            }
+        }
+        Collections.reverse(path);
+
+        for (long id = meeting; backward.visits.get(id).depth > 0; ) {
+            id = backward.visits.get(id).parent;
+            path.add(id);
+        }
+        return path;
+    }
+
+    private record Visit(long parent, int depth) {
+    }
+
+    private static class Side {
+        private final Map<Long, Visit> visits = new HashMap<>();
+        private List<Long> frontier;
+        private int depth;
+
+        Side(long root) {
+            visits.put(root, new Visit(root, 0));
+            frontier = List.of(root);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LikeCountReconciliationJob {
+    private final FilmStorage filmStorage;
+    private final PopularityLeaderboard leaderboard;
+    @Value("${filmorate.likes.reconcile-batch-size:1000}")
+    private int batchSize;
+
+    @Scheduled(initialDelayString = "${filmorate.likes.reconcile-delay-ms:600000}",
+            fixedDelayString = "${filmorate.likes.reconcile-delay-ms:600000}")
+    public void reconcile() {
+        int repaired = filmStorage.reconcileLikeCounts(batchSize);
+
+        if (repaired > 0) {
+            log.warn("Исправлены счётчики лайков у {} фильмов", repaired);
+        }
+
+        int drifted = leaderboard.verify();
+        if (drifted > 0) {
+            log.warn("Рейтинг популярности расходился с БД для {} фильмов", drifted);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.LikeOutcome;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Буфер отложенной записи лайков. События копятся в памяти и схлопываются по паре
+ * (фильм, пользователь): лайк и последующая отмена взаимно уничтожаются. Фоновый поток
+ * сбрасывает буфер пакетом не реже чем раз в flush-interval-ms; при переполнении запись
+ * выполняет вызывающий поток. Включается свойством filmorate.likes.write-behind.enabled.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "filmorate.likes.write-behind.enabled", havingValue = "true")
+public class LikeWriteBuffer {
+    private final FilmStorage filmStorage;
+    private final PopularityLeaderboard leaderboard;
+    private final int capacity;
+    private final ScheduledExecutorService flusher;
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private LinkedHashMap<Like, Boolean> pending = new LinkedHashMap<>();
+    private Map<Like, Boolean> inFlight = Map.of();
+    private Map<Long, Long> pendingDeltas = new HashMap<>();
+    private Map<Long, Long> inFlightDeltas = Map.of();
+
+    public LikeWriteBuffer(FilmStorage filmStorage,
+                           PopularityLeaderboard leaderboard,
+                           @Value("${filmorate.likes.write-behind.capacity:10000}") int capacity,
+                           @Value("${filmorate.likes.write-behind.flush-interval-ms:1000}") long flushIntervalMs) {
+        this.filmStorage = filmStorage;
+        this.leaderboard = leaderboard;
+        this.capacity = capacity;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "like-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Ставит событие в очередь. Возвращает false, если оно отменило ожидающее
+     * противоположное событие и в БД ничего писать не нужно.
+     */
+    public boolean submit(long filmId, long userId, boolean liked) {
+        Like like = new Like(filmId, userId);
+        while (true) {
+            synchronized (this) {
+                Boolean previous = pending.get(like);
+                if (previous != null && previous != liked) {
+                    pending.remove(like);
+                    addDelta(pendingDeltas, filmId, liked ? 1 : -1);
+                    return false;
+                }
+                if (previous != null) {
+                    return true;
+                }
+                if (pending.size() < capacity) {
+                    pending.put(like, liked);
+                    addDelta(pendingDeltas, filmId, liked ? 1 : -1);
+                    return true;
+                }
+            }
+            flush();
+        }
+    }
+
+    /**
+     * Состояние лайка с учётом ещё не записанных событий или null, если событий нет.
+     */
+    public synchronized Boolean pendingState(long filmId, long userId) {
+        Like like = new Like(filmId, userId);
+        Boolean state = pending.get(like);
+        return state != null ? state : inFlight.get(like);
+    }
+
+    /**
+     * Изменение счётчика лайков фильма, которое ещё не записано в БД.
+     */
+    public synchronized long pendingDelta(long filmId) {
+        return pendingDeltas.getOrDefault(filmId, 0L) + inFlightDeltas.getOrDefault(filmId, 0L);
+    }
+
+    public synchronized int size() {
+        return pending.size();
+    }
+
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<Like, Boolean> batch;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                inFlight = batch;
+                inFlightDeltas = pendingDeltas;
+                pending = new LinkedHashMap<>();
+                pendingDeltas = new HashMap<>();
+            }
+
+            try {
+                write(batch);
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    LinkedHashMap<Like, Boolean> restored = new LinkedHashMap<>(batch);
+                    pending.forEach((like, liked) -> {
+                        if (restored.containsKey(like) && restored.get(like) != liked) {
+                            restored.remove(like);
+                        } else {
+                            restored.put(like, liked);
+                        }
+                    });
+                    pending = restored;
+                    pendingDeltas = new HashMap<>();
+                    restored.forEach((like, liked) -> addDelta(pendingDeltas, like.getFilmId(), liked ? 1 : -1));
+                }
+                throw e;
+            } finally {
+                synchronized (this) {
+                    inFlight = Map.of();
+                    inFlightDeltas = Map.of();
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(30, TimeUnit.SECONDS);
+        flush();
+        log.info("Буфер лайков записан в БД при остановке");
+    }
+
+    private void write(Map<Like, Boolean> batch) {
+        List<Like> added = new ArrayList<>();
+        List<Like> removed = new ArrayList<>();
+        batch.forEach((like, liked) -> (liked ? added : removed).add(like));
+
+        Set<Long> filmIds = batch.keySet().stream().map(Like::getFilmId).collect(Collectors.toSet());
+        leaderboard.write(filmIds, () -> {
+            adjustLeaderboard(added, filmStorage.setLikesToDb(added), LikeOutcome.ADDED, 1);
+            adjustLeaderboard(removed, filmStorage.deleteLikesFromDb(removed), LikeOutcome.REMOVED, -1);
+            return null;
+        });
+    }
+
+    private void adjustLeaderboard(List<Like> likes, List<LikeOutcome> outcomes, LikeOutcome applied, long delta) {
+        for (int i = 0; i < likes.size(); i++) {
+            if (outcomes.get(i) == applied) {
+                leaderboard.adjust(likes.get(i).getFilmId(), delta);
+            } else {
+                log.warn("Отложенный лайк {} не записан: {}", likes.get(i), outcomes.get(i));
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Не удалось записать буфер лайков, повтор при следующем сбросе", e);
+        }
+    }
+
+    private static void addDelta(Map<Long, Long> deltas, long filmId, long delta) {
+        deltas.merge(filmId, delta, (current, added) -> current + added == 0 ? null : current + added);
+    }
+}
@@ -0,0 +1,66 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dto.ImportReportDTO;
+import ru.yandex.practicum.filmorate.exception.InternalServerException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Читает NDJSON построчно и передаёт записи пачками по chunkSize вместе с номерами строк,
+ * поэтому в памяти одновременно находится не больше одной пачки. Строки с некорректным
+ * JSON попадают в отчёт, пустые строки пропускаются.
+ */
+@Component
+@RequiredArgsConstructor
+public class NdjsonImporter {
+    private final ObjectMapper objectMapper;
+
+    public <T> ImportReportDTO importLines(InputStream body, Class<T> type, int chunkSize,
+                                           BiConsumer<Map<Long, T>, ImportReportDTO> chunkWriter) {
+        ObjectReader reader = objectMapper.readerFor(type);
+        ImportReportDTO report = new ImportReportDTO();
+        Map<Long, T> chunk = new LinkedHashMap<>();
+        long lineNumber = 0;
+
+        try (BufferedReader lines = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = lines.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                try {
+                    chunk.put(lineNumber, reader.readValue(line));
+                } catch (JsonProcessingException e) {
+                    report.addError(lineNumber, "Некорректный JSON: " + e.getOriginalMessage());
+                    continue;
+                }
+
+                if (chunk.size() >= chunkSize) {
+                    chunkWriter.accept(chunk, report);
+                    chunk = new LinkedHashMap<>();
+                }
+            }
+        } catch (IOException e) {
+            throw new InternalServerException("Не удалось прочитать данные импорта: " + e.getMessage());
+        }
+
+        if (!chunk.isEmpty()) {
+            chunkWriter.accept(chunk, report);
+        }
+        return report;
+    }
+}
@@ -0,0 +1,306 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Рейтинг фильмов по количеству лайков в памяти приложения.
+ * Загружается из БД при старте и обновляется при каждом лайке, поэтому
+ * топ из count фильмов строится за O(count) без обращения к БД.
+ * Помимо общего рейтинга ведутся рейтинги по каждому жанру, возрастному
+ * рейтингу и году выпуска для фильтрованных подборок.
+ * <p>
+ * Запись лайка в БД и соответствующий adjust выполняются внутри write: пока
+ * запись идёт, сверка verify не трогает эти фильмы, иначе она могла бы взять
+ * уже обновлённый счётчик из БД, а последующий adjust учёл бы лайк второй раз.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PopularityLeaderboard {
+    private static final Comparator<Entry> RANKING_ORDER = Comparator.comparingLong(Entry::likes).reversed()
+            .thenComparingLong(Entry::filmId);
+    private final FilmStorage filmStorage;
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Facets> facets = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Integer> writes = new ConcurrentHashMap<>();
+    private final Ranking ranking = new Ranking();
+    private final Map<Genre, Ranking> genreRanking = newRankings(Genre.class);
+    private final Map<Rating, Ranking> ratingRanking = newRankings(Rating.class);
+    private final ConcurrentHashMap<Integer, Ranking> yearRanking = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    @PostConstruct
+    public void load() {
+        ready = false;
+        entries.clear();
+        facets.clear();
+        ranking.clear();
+        genreRanking.values().forEach(Ranking::clear);
+        ratingRanking.values().forEach(Ranking::clear);
+        yearRanking.clear();
+
+        filmStorage.streamFilms(film -> update(film.getId(), ignored -> film.getLikeCount(), Facets.of(film)));
+        ready = true;
+        log.info("Рейтинг популярности загружен: {} фильмов", entries.size());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Добавляет фильм в рейтинг или обновляет его жанр, рейтинг и год,
+     * сохраняя накопленное количество лайков.
+     */
+    public void index(Film film) {
+        update(film.getId(), PopularityLeaderboard::likes, Facets.of(film));
+    }
+
+    public void adjust(long filmId, long delta) {
+        update(filmId, old -> likes(old) + delta, null);
+    }
+
+    /**
+     * Выполняет запись лайков в БД вместе с adjust по её результатам.
+     * До выхода из write фильмы из filmIds не исправляются сверкой.
+     */
+    public <T> T write(Collection<Long> filmIds, Supplier<T> write) {
+        Set<Long> ids = new HashSet<>(filmIds);
+        ids.forEach(id -> writes.merge(id, 1, Integer::sum));
+        try {
+            return write.get();
+        } finally {
+            ids.forEach(id -> writes.computeIfPresent(id, (key, count) -> count == 1 ? null : count - 1));
+        }
+    }
+
+    public void write(long filmId, Runnable write) {
+        write(List.of(filmId), () -> {
+            write.run();
+            return null;
+        });
+    }
+
+    public List<Long> top(int count) {
+        return top(count, null, null, null);
+    }
+
+    /**
+     * Обходит самый маленький из рейтингов по заданным фильтрам и отбрасывает
+     * фильмы, не подходящие под остальные фильтры.
+     */
+    public List<Long> top(int count, Genre genre, Rating rating, Integer year) {
+        List<Ranking> candidates = new ArrayList<>();
+        if (year != null) {
+            candidates.add(yearRanking.get(year));
+        }
+        if (genre != null) {
+            candidates.add(genreRanking.get(genre));
+        }
+        if (rating != null) {
+            candidates.add(ratingRanking.get(rating));
+        }
+        if (candidates.contains(null)) {
+            return new ArrayList<>();
+        }
+        Ranking source = candidates.stream()
+                .min(Comparator.comparingInt(Ranking::size))
+                .orElse(ranking);
+
+        Set<Long> result = new LinkedHashSet<>();
+
+        Iterator<Entry> iterator = source.iterator();
+        while (result.size() < count && iterator.hasNext()) {
+            long filmId = iterator.next().filmId();
+            if (facets.getOrDefault(filmId, Facets.NONE).matches(genre, rating, year)) {
+                result.add(filmId);
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * Сверяет рейтинг со счётчиками в БД и исправляет расхождения.
+     * Снимок getLikeCounts только находит кандидатов: счётчик каждого из них
+     * перечитывается отдельно и применяется, только если за это время запись
+     * фильма не менялась и для него не идёт write. Иначе фильм проверяется при
+     * следующей сверке. Фильм убирается из рейтинга, только если его нет в БД.
+     * Возвращает количество исправленных фильмов.
+     */
+    public int verify() {
+        Map<Long, Long> counts = filmStorage.getLikeCounts();
+        int repaired = 0;
+
+        for (Map.Entry<Long, Long> count : counts.entrySet()) {
+            Entry entry = entries.get(count.getKey());
+            if (entry == null) {
+                Film film = filmStorage.getFilmById(count.getKey());
+                if (film != null) {
+                    repair(film.getId(), Facets.of(film));
+                    repaired++;
+                }
+            } else if (entry.likes() != count.getValue() && repair(count.getKey(), null)) {
+                repaired++;
+            }
+        }
+        for (Long filmId : entries.keySet()) {
+            if (!counts.containsKey(filmId) && filmStorage.getLikeCount(filmId) == null) {
+                remove(filmId);
+                repaired++;
+            }
+        }
+        return repaired;
+    }
+
+    private boolean repair(long filmId, Facets newFacets) {
+        Entry seen = entries.get(filmId);
+        if (writes.containsKey(filmId)) {
+            return false;
+        }
+        Long actual = filmStorage.getLikeCount(filmId);
+        if (actual == null) {
+            return false;
+        }
+
+        boolean[] changed = {false};
+        // Новая запись фильма означает adjust после чтения счётчика: он мог уже учесть этот лайк
+        update(filmId, old -> {
+            if (old != seen || writes.containsKey(filmId) || (old != null && old.likes() == actual)) {
+                return likes(old);
+            }
+            changed[0] = true;
+            return actual;
+        }, newFacets);
+        return changed[0];
+    }
+
+    private void update(long filmId, ToLongFunction<Entry> likes, Facets newFacets) {
+        entries.compute(filmId, (id, old) -> {
+            Entry updated = new Entry(id, likes.applyAsLong(old));
+            Facets oldFacets = facets.getOrDefault(id, Facets.NONE);
+            Set<Ranking> oldRankings = rankings(oldFacets);
+            Set<Ranking> updatedRankings = newFacets == null ? oldRankings : rankings(newFacets);
+
+            // Сначала добавляем новую запись, чтобы читатели не теряли фильм из рейтинга
+            updatedRankings.forEach(rankingSet -> rankingSet.add(updated));
+            if (old != null) {
+                for (Ranking rankingSet : oldRankings) {
+                    if (!old.equals(updated) || !updatedRankings.contains(rankingSet)) {
+                        rankingSet.remove(old);
+                    }
+                }
+            }
+
+            if (newFacets != null) {
+                facets.put(id, newFacets);
+            }
+            return updated;
+        });
+    }
+
+    private void remove(long filmId) {
+        entries.computeIfPresent(filmId, (id, old) -> {
+            rankings(facets.getOrDefault(id, Facets.NONE)).forEach(rankingSet -> rankingSet.remove(old));
+            facets.remove(id);
+            return null;
+        });
+    }
+
+    private Set<Ranking> rankings(Facets filmFacets) {
+        Set<Ranking> result = Collections.newSetFromMap(new IdentityHashMap<>());
+        result.add(ranking);
+        filmFacets.genres().forEach(genre -> result.add(genreRanking.get(genre)));
+        if (filmFacets.rating() != null) {
+            result.add(ratingRanking.get(filmFacets.rating()));
+        }
+        if (filmFacets.year() != null) {
+            result.add(yearRanking.computeIfAbsent(filmFacets.year(), year -> new Ranking()));
+        }
+        return result;
+    }
+
+    private static long likes(Entry entry) {
+        return entry == null ? 0 : entry.likes();
+    }
+
+    private static <E extends Enum<E>> Map<E, Ranking> newRankings(Class<E> type) {
+        Map<E, Ranking> result = new EnumMap<>(type);
+        for (E value : type.getEnumConstants()) {
+            result.put(value, new Ranking());
+        }
+        return result;
+    }
+
+    private record Entry(long filmId, long likes) {
+    }
+
+    /**
+     * Упорядоченный рейтинг со счётчиком размера: size() у ConcurrentSkipListSet
+     * обходит весь набор, а top сравнивает размеры на каждом запросе.
+     */
+    private static class Ranking {
+        private final ConcurrentSkipListSet<Entry> entries = new ConcurrentSkipListSet<>(RANKING_ORDER);
+        private final AtomicInteger size = new AtomicInteger();
+
+        void add(Entry entry) {
+            if (entries.add(entry)) {
+                size.incrementAndGet();
+            }
+        }
+
+        void remove(Entry entry) {
+            if (entries.remove(entry)) {
+                size.decrementAndGet();
+            }
+        }
+
+        int size() {
+            return size.get();
+        }
+
+        Iterator<Entry> iterator() {
+            return entries.iterator();
+        }
+
+        void clear() {
+            entries.clear();
+            size.set(0);
+        }
+    }
+
+    private record Facets(Set<Genre> genres, Rating rating, Integer year) {
+        private static final Facets NONE = new Facets(Set.of(), null, null);
+
+        private static Facets of(Film film) {
+            Set<Genre> genres = EnumSet.noneOf(Genre.class);
+            if (film.getGenres() != null) {
+                film.getGenres().stream()
+                        .filter(Objects::nonNull)
+                        .forEach(genres::add);
+            }
+            Integer year = film.getReleaseDate() == null ? null : film.getReleaseDate().getYear();
+
+            return new Facets(genres, film.getRating(), year);
+        }
+
+        private boolean matches(Genre genre, Rating rating, Integer year) {
+            return (genre == null || genres.contains(genre))
+                    && (rating == null || rating == this.rating)
+                    && (year == null || year.equals(this.year));
+        }
+    }
+}
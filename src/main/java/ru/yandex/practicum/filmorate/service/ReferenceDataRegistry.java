@@ -0,0 +1,110 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import ru.yandex.practicum.filmorate.dto.GenreDTO;
+import ru.yandex.practicum.filmorate.dto.RatingDTO;
+import ru.yandex.practicum.filmorate.exception.InternalServerException;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Справочники жанров и возрастных рейтингов. При старте сверяет перечисления
+ * Genre и Rating с таблицами genre и rating, после чего отдаёт их только из памяти,
+ * в том числе в виде заранее сериализованного JSON с ETag.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReferenceDataRegistry {
+    private final FilmStorage filmStorage;
+    private final ObjectMapper objectMapper;
+    private Json genresJson;
+    private Json ratingsJson;
+    private Map<Integer, Json> genreJsonById;
+    private Map<Integer, Json> ratingJsonById;
+
+    @PostConstruct
+    public void load() {
+        List<GenreDTO> genres = filmStorage.getGenresList().stream()
+                .sorted(Comparator.comparingInt(GenreDTO::getId))
+                .toList();
+        List<RatingDTO> ratings = filmStorage.getRatingList().stream()
+                .sorted(Comparator.comparingInt(RatingDTO::getId))
+                .toList();
+
+        validate("genre", genres, GenreDTO::getId, GenreDTO::getName,
+                Arrays.stream(Genre.values()).toList(), Genre::toInt);
+        validate("rating", ratings, RatingDTO::getId, RatingDTO::getName,
+                Arrays.stream(Rating.values()).toList(), Rating::toInt);
+
+        genresJson = serialize(genres);
+        ratingsJson = serialize(ratings);
+        genreJsonById = serializeById(genres, GenreDTO::getId);
+        ratingJsonById = serializeById(ratings, RatingDTO::getId);
+        log.info("Справочники загружены: {} жанров, {} рейтингов", genres.size(), ratings.size());
+    }
+
+    public Json getGenresJson() {
+        return genresJson;
+    }
+
+    public Json getGenreJson(int id) {
+        return Optional.ofNullable(genreJsonById.get(id))
+                .orElseThrow(() -> new NotFoundException("Жанр с id " + id + " не найден"));
+    }
+
+    public Json getRatingsJson() {
+        return ratingsJson;
+    }
+
+    public Json getRatingJson(int id) {
+        return Optional.ofNullable(ratingJsonById.get(id))
+                .orElseThrow(() -> new NotFoundException("MPA с id " + id + " не найден"));
+    }
+
+    private <T, E> void validate(String table, List<T> rows, Function<T, Integer> id, Function<T, String> name,
+                                 List<E> values, Function<E, Integer> valueId) {
+        Map<Integer, String> rowNames = new HashMap<>();
+        rows.forEach(row -> rowNames.put(id.apply(row), name.apply(row)));
+
+        for (E value : values) {
+            if (!value.toString().equals(rowNames.get(valueId.apply(value)))) {
+                throw new InternalServerException("Таблица " + table + " не соответствует значению " + value
+                        + " с id " + valueId.apply(value));
+            }
+        }
+        if (rowNames.size() != values.size()) {
+            throw new InternalServerException("Таблица " + table + " содержит " + rowNames.size()
+                    + " записей, ожидалось " + values.size());
+        }
+    }
+
+    private <T> Map<Integer, Json> serializeById(List<T> rows, Function<T, Integer> id) {
+        Map<Integer, Json> result = new HashMap<>();
+        rows.forEach(row -> result.put(id.apply(row), serialize(row)));
+        return Map.copyOf(result);
+    }
+
+    private Json serialize(Object value) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(value);
+            return new Json(body, "\"" + DigestUtils.md5DigestAsHex(body) + "\"");
+        } catch (JsonProcessingException e) {
+            throw new InternalServerException("Не удалось сериализовать справочник: " + e.getMessage());
+        }
+    }
+
+    public record Json(byte[] body, String eTag) {
+    }
+}
@@ -1,27 +1,55 @@
 package ru.yandex.practicum.filmorate.service;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.dto.FriendDTO;
+import ru.yandex.practicum.filmorate.dto.ImportReportDTO;
+import ru.yandex.practicum.filmorate.dto.PageDTO;
+import ru.yandex.practicum.filmorate.dto.SuggestionDTO;
 import ru.yandex.practicum.filmorate.dto.UserDTO;
+import ru.yandex.practicum.filmorate.dto.mapper.PageMapper;
 import ru.yandex.practicum.filmorate.dto.mapper.UserMapper;
 import ru.yandex.practicum.filmorate.dto.request.UserCreateRequest;
 import ru.yandex.practicum.filmorate.dto.request.UserUpdateRequest;
+import ru.yandex.practicum.filmorate.exception.InternalServerException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Friend;
 import ru.yandex.practicum.filmorate.model.FriendshipStatus;
+import ru.yandex.practicum.filmorate.model.Suggestion;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
 
+import java.io.InputStream;
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.Collection;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @Service
 public class UserService {
+    private static final int IMPORT_CHUNK_SIZE = 1000;
+    private static final int MAX_FIELD_LENGTH = 40;
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("^[a-zA-Z0-9._-]+@[a-zA-Z0-9._-]+.[a-zA-Z0-9_-]+");
+    private static final Pattern LOGIN_PATTERN = Pattern.compile("\\S*");
     private final UserStorage userStorage;
+    private final NdjsonImporter importer;
+    private final FriendshipGraph graph;
+    private final FriendshipPathFinder pathFinder;
+    private final int suggestionsMaxExpandedFriends;
 
-    public UserService(UserStorage memoryUserStorage) {
+    public UserService(UserStorage memoryUserStorage, NdjsonImporter importer,
+                       ObjectProvider<FriendshipGraph> graph, FriendshipPathFinder pathFinder,
+                       @Value("${filmorate.friends.suggestions.max-expanded-friends:500}")
+                       int suggestionsMaxExpandedFriends) {
         this.userStorage = memoryUserStorage;
+        this.importer = importer;
+        this.graph = graph.getIfAvailable();
+        this.pathFinder = pathFinder;
+        this.suggestionsMaxExpandedFriends = suggestionsMaxExpandedFriends;
     }
 
     public void addToFriends(Long userId, Long friendId) {
@@ -35,8 +63,15 @@ public class UserService {
         if (friend.getFriends() != null && friend.getFriends().containsKey(userId)) {
             userStorage.addFieldToFriendship(userId, friendId, FriendshipStatus.CONFIRMED);
             userStorage.addFieldToFriendship(friendId, userId, FriendshipStatus.CONFIRMED);
+            if (graph != null) {
+                graph.put(userId, friendId, FriendshipStatus.CONFIRMED);
+                graph.put(friendId, userId, FriendshipStatus.CONFIRMED);
+            }
         } else {
             userStorage.addFieldToFriendship(userId, friendId, FriendshipStatus.UNCONFIRMED);
+            if (graph != null) {
+                graph.put(userId, friendId, FriendshipStatus.UNCONFIRMED);
+            }
         }
     }
 
@@ -45,20 +80,35 @@ public class UserService {
         User friend = getUserIfNotNull(friendId);
 
         if (user.getFriends() != null && user.getFriends().containsKey(friend.getId())) {
-            userStorage.deleteFieldFromFriendship(userId, friendId, user.getFriends().get(friendId));
+            FriendshipStatus status = user.getFriends().get(friendId);
+            userStorage.deleteFieldFromFriendship(userId, friendId, status);
+            if (graph != null) {
+                graph.remove(userId, friendId, status);
+            }
         }
     }
 
-    public Collection<UserDTO> getFriends(Long userId) {
-        User user = getUserIfNotNull(userId);
+    public Collection<FriendDTO> getFriends(Long userId) {
+        getUserIfNotNull(userId);
 
-        return (user.getFriends() == null || user.getFriends().isEmpty()) ? new ArrayList<>()
-                : userStorage.getUsers().stream()
-                .filter(friend -> user.getFriends().containsKey(friend.getId()))
-                .map(UserMapper::mapToUserDto)
+        return loadFriends(userId, 0, PageMapper.UNPAGED_LIMIT)
+                .stream()
+                .map(UserMapper::mapToFriendDto)
                 .toList();
     }
 
+    public PageDTO<FriendDTO> getFriendsPage(Long userId, String cursor, int limit) {
+        PageMapper.validateLimit(limit);
+        getUserIfNotNull(userId);
+
+        return PageMapper.mapToPage(
+                loadFriends(userId, PageMapper.decodeCursor(cursor), limit + 1),
+                limit,
+                friend -> friend.getUser().getId(),
+                UserMapper::mapToFriendDto
+        );
+    }
+
     public UserDTO create(UserCreateRequest request) {
         validateCreateRequest(request);
 
@@ -68,6 +118,58 @@ public class UserService {
         return UserMapper.mapToUserDto(user);
     }
 
+    /**
+     * Импорт пользователей из NDJSON. Уникальность email и login проверяется одним запросом
+     * на пачку из IMPORT_CHUNK_SIZE строк, в том числе между строками самой пачки. Если база
+     * всё же отклонила пачку (например, тот же email успели зарегистрировать параллельно),
+     * все её строки попадают в отчёт, а импорт продолжается со следующей пачки.
+     */
+    public ImportReportDTO importUsers(InputStream body) {
+        return importer.importLines(body, UserCreateRequest.class, IMPORT_CHUNK_SIZE, (chunk, report) -> {
+            Map<Long, User> candidates = new LinkedHashMap<>();
+            chunk.forEach((line, request) -> {
+                try {
+                    validateUserFields(request);
+                    candidates.put(line, UserMapper.mapToUser(request));
+                } catch (ValidationException e) {
+                    report.addError(line, e.getMessage());
+                }
+            });
+
+            Set<String> takenEmails = new HashSet<>();
+            Set<String> takenLogins = new HashSet<>();
+            userStorage.getUsersByEmailsOrLogins(
+                    candidates.values().stream().map(User::getEmail).collect(Collectors.toSet()),
+                    candidates.values().stream().map(User::getLogin).collect(Collectors.toSet())
+            ).forEach(user -> {
+                takenEmails.add(user.getEmail());
+                takenLogins.add(user.getLogin());
+            });
+
+            Map<Long, User> users = new LinkedHashMap<>();
+            candidates.forEach((line, user) -> {
+                if (takenEmails.contains(user.getEmail())) {
+                    report.addError(line, "Email " + user.getEmail() + " уже зарегистрирован");
+                } else if (takenLogins.contains(user.getLogin())) {
+                    report.addError(line, "Login " + user.getLogin() + " уже зарегистрирован");
+                } else {
+                    takenEmails.add(user.getEmail());
+                    takenLogins.add(user.getLogin());
+                    users.put(line, user);
+                }
+            });
+
+            try {
+                userStorage.createAll(new ArrayList<>(users.values()));
+            } catch (DataAccessException | InternalServerException e) {
+                String message = "Пачка строк не записана: " + getFailureMessage(e);
+                users.keySet().forEach(line -> report.addError(line, message));
+                return;
+            }
+            report.addImported(users.size());
+        });
+    }
+
     public UserDTO update(UserUpdateRequest request) {
         if (request.getId() == null) {
             throw new ValidationException("ID должен быть указан");
@@ -79,64 +181,159 @@ public class UserService {
     }
 
     public Collection<UserDTO> getUsersAll() {
-        return userStorage.getUsers()
+        return userStorage.getUsers(0, PageMapper.UNPAGED_LIMIT)
                 .stream()
                 .map(UserMapper::mapToUserDto)
                 .collect(Collectors.toList());
     }
 
+    public void streamUsersAll(Consumer<UserDTO> consumer) {
+        userStorage.streamUsers(user -> consumer.accept(UserMapper.mapToUserDto(user)));
+    }
+
+    public PageDTO<UserDTO> getUsersPage(String cursor, int limit) {
+        PageMapper.validateLimit(limit);
+        return PageMapper.mapToPage(
+                userStorage.getUsers(PageMapper.decodeCursor(cursor), limit + 1),
+                limit,
+                User::getId,
+                UserMapper::mapToUserDto
+        );
+    }
+
     public UserDTO getUserById(Long id) {
         return UserMapper.mapToUserDto(userStorage.getUserById(id));
     }
 
     public Collection<UserDTO> getFriendsMutual(Long userId, Long friendId) {
+        getUserIfNotNull(userId);
+        getUserIfNotNull(friendId);
+
+        List<User> mutualFriends = isGraphReady()
+                ? userStorage.getUsersByIds(toList(graph.mutual(userId, friendId)))
+                : userStorage.getMutualFriends(userId, friendId);
+
+        return mutualFriends.stream()
+                .map(UserMapper::mapToUserDto)
+                .toList();
+    }
+
+    public int countFriendsMutual(Long userId, Long friendId) {
+        getUserIfNotNull(userId);
+        getUserIfNotNull(friendId);
+
+        return isGraphReady()
+                ? graph.countMutual(userId, friendId)
+                : userStorage.countMutualFriends(userId, friendId);
+    }
+
+    public int countFriends(Long userId) {
         User user = getUserIfNotNull(userId);
-        User friend = getUserIfNotNull(friendId);
 
-        Collection<Long> mutualFriendsIdList = user.getFriends().keySet().stream()
-                .filter(id -> friend.getFriends().containsKey(id))
+        return isGraphReady()
+                ? graph.degree(userId)
+                : (user.getFriends() == null ? 0 : user.getFriends().size());
+    }
+
+    /**
+     * «Возможно, вы знаете»: друзья друзей, ранжированные по числу общих друзей.
+     */
+    public List<SuggestionDTO> getFriendSuggestions(Long userId, int limit) {
+        PageMapper.validateLimit(limit);
+        getUserIfNotNull(userId);
+
+        if (!isGraphReady()) {
+            return userStorage.getSuggestedFriends(userId, suggestionsMaxExpandedFriends, limit)
+                    .stream()
+                    .map(UserMapper::mapToSuggestionDto)
+                    .toList();
+        }
+
+        Map<Long, Integer> ranked = graph.suggestions(userId, suggestionsMaxExpandedFriends, limit);
+        return userStorage.getUsersByIds(new ArrayList<>(ranked.keySet()))
+                .stream()
+                .map(user -> UserMapper.mapToSuggestionDto(new Suggestion(user, ranked.get(user.getId()))))
                 .toList();
+    }
+
+    public List<UserDTO> getFriendshipPath(Long userId, Long otherId) {
+        getUserIfNotNull(userId);
+        getUserIfNotNull(otherId);
 
-        return userStorage.getUsers().stream()
-                .filter(usr -> mutualFriendsIdList.contains(usr.getId()))
+        List<Long> path = pathFinder.findPath(userId, otherId);
+        if (path.isEmpty()) {
+            throw new NotFoundException("Цепочка дружбы между пользователями " + userId + " и " + otherId
+                    + " не найдена в пределах " + pathFinder.getMaxDepth() + " шагов");
+        }
+
+        return userStorage.getUsersByIds(path)
+                .stream()
                 .map(UserMapper::mapToUserDto)
                 .toList();
     }
 
+    private List<Friend> loadFriends(long userId, long afterFriendId, int limit) {
+        if (!isGraphReady()) {
+            return userStorage.getFriends(userId, afterFriendId, limit);
+        }
+
+        return userStorage.getUsersByIds(toList(graph.friends(userId, afterFriendId, limit)))
+                .stream()
+                .map(friend -> new Friend(friend, graph.status(userId, friend.getId())))
+                .toList();
+    }
+
+    private boolean isGraphReady() {
+        return graph != null && graph.isReady();
+    }
+
+    private static List<Long> toList(long[] ids) {
+        return Arrays.stream(ids).boxed().toList();
+    }
+
     private void validateCreateRequest(UserCreateRequest request) {
-        if (request.getEmail() == null || request.getEmail().isBlank()) {
+        validateUserFields(request);
+
+        if (userStorage.existsByEmail(request.getEmail())) {
+            throw new ValidationException("Email " + request.getEmail() + " уже зарегистрирован");
+        }
+        if (userStorage.existsByLogin(request.getLogin())) {
+            throw new ValidationException("Login " + request.getLogin() + " уже зарегистрирован");
+        }
+    }
+
+    private void validateUserFields(UserCreateRequest request) {
+        if (request == null || request.getEmail() == null || request.getEmail().isBlank()) {
             throw new ValidationException("Email должен быть указан");
         }
-        if (!(request.getEmail().matches("^[a-zA-Z0-9._-]+@[a-zA-Z0-9._-]+.[a-zA-Z0-9_-]+"))) {
+        if (!EMAIL_PATTERN.matcher(request.getEmail()).matches()) {
             throw new ValidationException("Поле Email должно содержать буквы латинского алфавита, цифры и знак \"@\". "
                     + "Пример: example@domain.com");
         }
         if (request.getLogin() == null || request.getLogin().isBlank()) {
             throw new ValidationException("Login должен быть указан");
         }
-        if (!(request.getLogin().matches("\\S*"))) {
+        if (!LOGIN_PATTERN.matcher(request.getLogin()).matches()) {
             throw new ValidationException("Поле логин не должно содержать символы пробела");
         }
+        validateLength("Email", request.getEmail());
+        validateLength("Login", request.getLogin());
+        validateLength("Имя", request.getName());
         if (request.getBirthday() != null && request.getBirthday().isAfter(LocalDate.now())) {
             throw new ValidationException("Значение поля дата_рождения должно быть раньше текущей даты");
         }
+    }
 
-        userStorage.getUsers()
-                .stream()
-                .map(User::getEmail)
-                .filter(email -> email.equals(request.getEmail()))
-                .findFirst()
-                .ifPresent(email -> {
-                    throw new ValidationException("Email " + email + " уже зарегистрирован");
-                });
-        userStorage.getUsers()
-                .stream()
-                .map(User::getLogin)
-                .filter(login -> login.equals(request.getLogin()))
-                .findFirst()
-                .ifPresent(login -> {
-                    throw new ValidationException("Login " + login + " уже зарегистрирован");
-                });
+    private void validateLength(String field, String value) {
+        if (value != null && value.length() > MAX_FIELD_LENGTH) {
+            throw new ValidationException("Поле " + field + " должно быть не более " + MAX_FIELD_LENGTH + " символов");
+        }
+    }
+
+    private String getFailureMessage(RuntimeException e) {
+        return e instanceof DataAccessException dataAccess
+                ? dataAccess.getMostSpecificCause().getMessage()
+                : e.getMessage();
     }
 
     private User getUserIfNotNull(long id) {
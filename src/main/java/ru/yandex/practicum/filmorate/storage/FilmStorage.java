@@ -3,23 +3,62 @@ package ru.yandex.practicum.filmorate.storage;
 import ru.yandex.practicum.filmorate.dto.GenreDTO;
 import ru.yandex.practicum.filmorate.dto.RatingDTO;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.LikeOutcome;
+import ru.yandex.practicum.filmorate.model.LikeSet;
+import ru.yandex.practicum.filmorate.model.Rating;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface FilmStorage {
 
     Collection<Film> getFilms();
 
+    List<Film> getFilms(long afterId, int limit);
+
+    void streamFilms(Consumer<Film> consumer);
+
+    List<Film> getFilmsByGenres(Set<Genre> genres, boolean matchAll, long afterId, int limit);
+
     Film getFilmById(Long id);
 
+    Long findIdByTitle(String title, long excludeId);
+
+    List<Film> getFilmsByIds(List<Long> ids);
+
+    List<Film> getTopFilms(int count, Genre genre, Rating rating, Integer year);
+
+    Map<Long, Long> getLikeCounts();
+
+    Long getLikeCount(long filmId);
+
     Film create(Film newFilm);
 
+    List<Film> createAll(List<Film> films);
+
     Film update(Film newFilm);
 
     void setLikeToDb(long filmId, long userId);
 
     void deleteLikeFromDb(long filmId, long userId);
 
+    List<LikeOutcome> setLikesToDb(List<Like> likes);
+
+    List<LikeOutcome> deleteLikesFromDb(List<Like> likes);
+
+    boolean isLiked(long filmId, long userId);
+
+    LikeSet getLikes(long filmId);
+
+    List<Long> getLikedFilmIds(long userId, long afterFilmId, int limit);
+
+    int reconcileLikeCounts(int batchSize);
+
     Collection<RatingDTO> getRatingList();
 
     RatingDTO getRatingById(int id);
@@ -1,18 +1,53 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import ru.yandex.practicum.filmorate.model.Friend;
 import ru.yandex.practicum.filmorate.model.FriendshipStatus;
+import ru.yandex.practicum.filmorate.model.Suggestion;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
 
 public interface UserStorage {
 
+    @FunctionalInterface
+    interface FriendshipConsumer {
+        void accept(long userId, long friendId, FriendshipStatus status);
+    }
+
     Collection<User> getUsers();
 
+    List<User> getUsers(long afterId, int limit);
+
+    void streamUsers(Consumer<User> consumer);
+
+    void streamFriendships(FriendshipConsumer consumer);
+
+    void streamFriendships(List<Long> userIds, FriendshipConsumer consumer);
+
+    List<User> getUsersByIds(List<Long> ids);
+
     User getUserById(Long id);
 
+    List<Friend> getFriends(long userId, long afterFriendId, int limit);
+
+    List<User> getMutualFriends(long userId, long otherId);
+
+    int countMutualFriends(long userId, long otherId);
+
+    List<Suggestion> getSuggestedFriends(long userId, int maxExpandedFriends, int limit);
+
+    boolean existsByEmail(String email);
+
+    boolean existsByLogin(String login);
+
     User create(User newUser);
 
+    List<User> createAll(List<User> users);
+
+    List<User> getUsersByEmailsOrLogins(Collection<String> emails, Collection<String> logins);
+
     User update(User newUser);
 
     void addFieldToFriendship(long userId, long friendId, FriendshipStatus status);
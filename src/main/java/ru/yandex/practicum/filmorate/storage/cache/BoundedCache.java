@@ -0,0 +1,121 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * Кэш с ограничением по числу записей и их оценочному объёму в байтах
+ * (вытесняется давно не читавшаяся запись) и по времени жизни записи.
+ * Считает попадания, промахи и вытеснения.
+ * <p>
+ * Инвалидация оставляет метку с номером на свой ключ, и put отбрасывает значение,
+ * прочитанное до метки этого ключа; чтения других ключей она не задевает. Меток
+ * хранится не больше maxSize: при вытеснении старой метки её номер становится
+ * нижней границей для всех ключей.
+ */
+public class BoundedCache<K, V> {
+    private final String name;
+    private final int maxSize;
+    private final long maxWeight;
+    private final long ttlNanos;
+    private final ToLongFunction<V> weigher;
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LinkedHashMap<K, Long> invalidations = new LinkedHashMap<>();
+    private long clock;
+    private long floor;
+    private long weight;
+
+    public BoundedCache(String name, int maxSize, long ttlSeconds) {
+        this(name, maxSize, Long.MAX_VALUE, ttlSeconds, value -> 0);
+    }
+
+    public BoundedCache(String name, int maxSize, long maxWeight, long ttlSeconds, ToLongFunction<V> weigher) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.maxWeight = maxWeight;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.weigher = weigher;
+    }
+
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+
+        if (entry != null && System.nanoTime() - entry.createdAt() >= ttlNanos) {
+            remove(key);
+            evictions.increment();
+            entry = null;
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value();
+    }
+
+    /**
+     * Отметка для последующего вызова put: значение, прочитанное из БД
+     * до инвалидации своего ключа, не попадёт в кэш.
+     */
+    public synchronized long stamp() {
+        return clock;
+    }
+
+    public synchronized void put(K key, V value, long readStamp) {
+        if (value == null || readStamp < floor || invalidations.getOrDefault(key, 0L) > readStamp) {
+            return;
+        }
+
+        remove(key);
+        Entry<V> entry = new Entry<>(value, System.nanoTime(), weigher.applyAsLong(value));
+        entries.put(key, entry);
+        weight += entry.weight();
+
+        Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+        while ((entries.size() > maxSize || weight > maxWeight) && eldest.hasNext()) {
+            weight -= eldest.next().getValue().weight();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    public synchronized void invalidate(K key) {
+        remove(key);
+        invalidations.remove(key);
+        invalidations.put(key, ++clock);
+
+        if (invalidations.size() > maxSize) {
+            Iterator<Long> eldest = invalidations.values().iterator();
+            floor = eldest.next();
+            eldest.remove();
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        floor = ++clock;
+        invalidations.clear();
+        entries.clear();
+        weight = 0;
+    }
+
+    public synchronized CacheStats stats() {
+        return new CacheStats(name, entries.size(), weight, hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    private void remove(K key) {
+        Entry<V> removed = entries.remove(key);
+        if (removed != null) {
+            weight -= removed.weight();
+        }
+    }
+
+    private record Entry<V>(V value, long createdAt, long weight) {
+    }
+}
@@ -0,0 +1,6 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+public interface CacheMetrics {
+
+    CacheStats getStats();
+}
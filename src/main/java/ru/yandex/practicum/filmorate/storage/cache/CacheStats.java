@@ -0,0 +1,8 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+public record CacheStats(String name, int size, long memoryBytes, long hits, long misses, long evictions) {
+    public double getHitRatio() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+}
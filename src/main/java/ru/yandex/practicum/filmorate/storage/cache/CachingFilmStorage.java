@@ -0,0 +1,261 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dto.GenreDTO;
+import ru.yandex.practicum.filmorate.dto.RatingDTO;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.LikeOutcome;
+import ru.yandex.practicum.filmorate.model.LikeSet;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Кэширующая обёртка над FilmStorage для чтения фильмов по id.
+ * Включается свойством filmorate.cache.films.enabled. Запись фильма
+ * сбрасывается при его обновлении и при изменении его лайков.
+ * <p>
+ * Лайки фильма загружаются в отдельный кэш LikeSet только при первой проверке isLiked
+ * и сбрасываются вместе с записью фильма; обычное чтение фильма их не затрагивает.
+ */
+@Primary
+@Component
+@ConditionalOnProperty(name = "filmorate.cache.films.enabled", havingValue = "true")
+public class CachingFilmStorage implements FilmStorage, CacheMetrics {
+    private final FilmStorage delegate;
+    private final BoundedCache<Long, Film> cache;
+    private final BoundedCache<Long, LikeSet> likeSets;
+
+    public CachingFilmStorage(@Qualifier("FilmDbStorage") FilmStorage delegate,
+                              @Value("${filmorate.cache.films.max-size:10000}") int maxSize,
+                              @Value("${filmorate.cache.films.max-bytes:67108864}") long maxBytes,
+                              @Value("${filmorate.cache.films.ttl-seconds:600}") long ttlSeconds,
+                              @Value("${filmorate.cache.likes.max-size:1000}") int likesMaxSize,
+                              @Value("${filmorate.cache.likes.max-bytes:67108864}") long likesMaxBytes) {
+        this.delegate = delegate;
+        this.cache = new BoundedCache<>("films", maxSize, maxBytes, ttlSeconds, CachingFilmStorage::estimateSize);
+        this.likeSets = new BoundedCache<>("film-likes", likesMaxSize, likesMaxBytes, ttlSeconds, LikeSet::memoryBytes);
+    }
+
+    @Override
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    @Override
+    public Collection<Film> getFilms() {
+        return delegate.getFilms();
+    }
+
+    @Override
+    public List<Film> getFilms(long afterId, int limit) {
+        return delegate.getFilms(afterId, limit);
+    }
+
+    @Override
+    public void streamFilms(Consumer<Film> consumer) {
+        delegate.streamFilms(consumer);
+    }
+
+    @Override
+    public List<Film> getFilmsByGenres(Set<Genre> genres, boolean matchAll, long afterId, int limit) {
+        return delegate.getFilmsByGenres(genres, matchAll, afterId, limit);
+    }
+
+    @Override
+    public Long findIdByTitle(String title, long excludeId) {
+        return delegate.findIdByTitle(title, excludeId);
+    }
+
+    @Override
+    public Film getFilmById(Long id) {
+        Film cached = cache.get(id);
+        if (cached != null) {
+            return copy(cached);
+        }
+
+        long stamp = cache.stamp();
+        Film film = delegate.getFilmById(id);
+        if (film != null) {
+            cache.put(id, copy(film), stamp);
+        }
+        return film;
+    }
+
+    @Override
+    public List<Film> getFilmsByIds(List<Long> ids) {
+        Map<Long, Film> found = new HashMap<>();
+        List<Long> missed = new ArrayList<>();
+
+        for (Long id : ids) {
+            Film cached = cache.get(id);
+            if (cached != null) {
+                found.put(id, copy(cached));
+            } else {
+                missed.add(id);
+            }
+        }
+
+        if (!missed.isEmpty()) {
+            long stamp = cache.stamp();
+            for (Film film : delegate.getFilmsByIds(missed)) {
+                cache.put(film.getId(), copy(film), stamp);
+                found.put(film.getId(), film);
+            }
+        }
+
+        return ids.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    public List<Film> getTopFilms(int count, Genre genre, Rating rating, Integer year) {
+        return delegate.getTopFilms(count, genre, rating, year);
+    }
+
+    @Override
+    public Map<Long, Long> getLikeCounts() {
+        return delegate.getLikeCounts();
+    }
+
+    @Override
+    public Long getLikeCount(long filmId) {
+        return delegate.getLikeCount(filmId);
+    }
+
+    @Override
+    public Film create(Film newFilm) {
+        return delegate.create(newFilm);
+    }
+
+    @Override
+    public List<Film> createAll(List<Film> films) {
+        return delegate.createAll(films);
+    }
+
+    @Override
+    public Film update(Film newFilm) {
+        cache.invalidate(newFilm.getId());
+        Film updated = delegate.update(newFilm);
+        cache.invalidate(newFilm.getId());
+        return updated;
+    }
+
+    @Override
+    public void setLikeToDb(long filmId, long userId) {
+        delegate.setLikeToDb(filmId, userId);
+        invalidate(filmId);
+    }
+
+    @Override
+    public void deleteLikeFromDb(long filmId, long userId) {
+        delegate.deleteLikeFromDb(filmId, userId);
+        invalidate(filmId);
+    }
+
+    @Override
+    public List<LikeOutcome> setLikesToDb(List<Like> likes) {
+        return invalidateChanged(likes, delegate.setLikesToDb(likes));
+    }
+
+    @Override
+    public List<LikeOutcome> deleteLikesFromDb(List<Like> likes) {
+        return invalidateChanged(likes, delegate.deleteLikesFromDb(likes));
+    }
+
+    @Override
+    public boolean isLiked(long filmId, long userId) {
+        return getLikes(filmId).contains(userId);
+    }
+
+    @Override
+    public LikeSet getLikes(long filmId) {
+        LikeSet cached = likeSets.get(filmId);
+        if (cached != null) {
+            return cached;
+        }
+
+        long stamp = likeSets.stamp();
+        LikeSet loaded = delegate.getLikes(filmId);
+        likeSets.put(filmId, loaded, stamp);
+        return loaded;
+    }
+
+    @Override
+    public List<Long> getLikedFilmIds(long userId, long afterFilmId, int limit) {
+        return delegate.getLikedFilmIds(userId, afterFilmId, limit);
+    }
+
+    @Override
+    public int reconcileLikeCounts(int batchSize) {
+        int repaired = delegate.reconcileLikeCounts(batchSize);
+        if (repaired > 0) {
+            cache.invalidateAll();
+        }
+        return repaired;
+    }
+
+    @Override
+    public Collection<RatingDTO> getRatingList() {
+        return delegate.getRatingList();
+    }
+
+    @Override
+    public RatingDTO getRatingById(int id) {
+        return delegate.getRatingById(id);
+    }
+
+    @Override
+    public Collection<GenreDTO> getGenresList() {
+        return delegate.getGenresList();
+    }
+
+    @Override
+    public GenreDTO getGenreById(int id) {
+        return delegate.getGenreById(id);
+    }
+
+    private static long estimateSize(Film film) {
+        return 96
+                + MemoryEstimates.ofString(film.getName())
+                + MemoryEstimates.ofString(film.getDescription())
+                + MemoryEstimates.ofSet(film.getGenres());
+    }
+
+    private static Film copy(Film film) {
+        Film copy = new Film();
+        copy.setId(film.getId());
+        copy.setName(film.getName());
+        copy.setDescription(film.getDescription());
+        copy.setReleaseDate(film.getReleaseDate());
+        copy.setDuration(film.getDuration());
+        copy.setRating(film.getRating());
+        copy.setLikeCount(film.getLikeCount());
+        copy.setGenres(film.getGenres() == null ? null : new HashSet<>(film.getGenres()));
+        return copy;
+    }
+
+    private void invalidate(long filmId) {
+        cache.invalidate(filmId);
+        likeSets.invalidate(filmId);
+    }
+
+    private List<LikeOutcome> invalidateChanged(List<Like> likes, List<LikeOutcome> outcomes) {
+        for (int i = 0; i < likes.size(); i++) {
+            if (outcomes.get(i) == LikeOutcome.ADDED || outcomes.get(i) == LikeOutcome.REMOVED) {
+                invalidate(likes.get(i).getFilmId());
+            }
+        }
+        return outcomes;
+    }
+}
@@ -0,0 +1,176 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Friend;
+import ru.yandex.practicum.filmorate.model.FriendshipStatus;
+import ru.yandex.practicum.filmorate.model.Suggestion;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.storage.dao.UserDbStorage;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Кэширующая обёртка над UserStorage для чтения пользователя вместе с друзьями.
+ * Включается свойством filmorate.cache.users.enabled. Запись пользователя
+ * сбрасывается при его обновлении и при изменении его дружеских связей.
+ */
+@Primary
+@Component
+@ConditionalOnProperty(name = "filmorate.cache.users.enabled", havingValue = "true")
+public class CachingUserStorage implements UserStorage, CacheMetrics {
+    private final UserStorage delegate;
+    private final BoundedCache<Long, User> cache;
+
+    public CachingUserStorage(UserDbStorage delegate,
+                              @Value("${filmorate.cache.users.max-size:100000}") int maxSize,
+                              @Value("${filmorate.cache.users.max-bytes:67108864}") long maxBytes,
+                              @Value("${filmorate.cache.users.ttl-seconds:600}") long ttlSeconds) {
+        this.delegate = delegate;
+        this.cache = new BoundedCache<>("users", maxSize, maxBytes, ttlSeconds, CachingUserStorage::estimateSize);
+    }
+
+    @Override
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    @Override
+    public Collection<User> getUsers() {
+        return delegate.getUsers();
+    }
+
+    @Override
+    public List<User> getUsers(long afterId, int limit) {
+        return delegate.getUsers(afterId, limit);
+    }
+
+    @Override
+    public void streamUsers(Consumer<User> consumer) {
+        delegate.streamUsers(consumer);
+    }
+
+    @Override
+    public User getUserById(Long id) {
+        User cached = cache.get(id);
+        if (cached != null) {
+            return copy(cached);
+        }
+
+        long stamp = cache.stamp();
+        User user = delegate.getUserById(id);
+        if (user != null) {
+            cache.put(id, copy(user), stamp);
+        }
+        return user;
+    }
+
+    @Override
+    public void streamFriendships(FriendshipConsumer consumer) {
+        delegate.streamFriendships(consumer);
+    }
+
+    @Override
+    public void streamFriendships(List<Long> userIds, FriendshipConsumer consumer) {
+        delegate.streamFriendships(userIds, consumer);
+    }
+
+    @Override
+    public List<User> getUsersByIds(List<Long> ids) {
+        return delegate.getUsersByIds(ids);
+    }
+
+    @Override
+    public List<Friend> getFriends(long userId, long afterFriendId, int limit) {
+        return delegate.getFriends(userId, afterFriendId, limit);
+    }
+
+    @Override
+    public List<User> getMutualFriends(long userId, long otherId) {
+        return delegate.getMutualFriends(userId, otherId);
+    }
+
+    @Override
+    public int countMutualFriends(long userId, long otherId) {
+        return delegate.countMutualFriends(userId, otherId);
+    }
+
+    @Override
+    public List<Suggestion> getSuggestedFriends(long userId, int maxExpandedFriends, int limit) {
+        return delegate.getSuggestedFriends(userId, maxExpandedFriends, limit);
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        return delegate.existsByEmail(email);
+    }
+
+    @Override
+    public boolean existsByLogin(String login) {
+        return delegate.existsByLogin(login);
+    }
+
+    @Override
+    public User create(User newUser) {
+        return delegate.create(newUser);
+    }
+
+    @Override
+    public List<User> createAll(List<User> users) {
+        return delegate.createAll(users);
+    }
+
+    @Override
+    public List<User> getUsersByEmailsOrLogins(Collection<String> emails, Collection<String> logins) {
+        return delegate.getUsersByEmailsOrLogins(emails, logins);
+    }
+
+    @Override
+    public User update(User newUser) {
+        cache.invalidate(newUser.getId());
+        User updated = delegate.update(newUser);
+        cache.invalidate(newUser.getId());
+        return updated;
+    }
+
+    @Override
+    public void addFieldToFriendship(long userId, long friendId, FriendshipStatus status) {
+        delegate.addFieldToFriendship(userId, friendId, status);
+        cache.invalidate(userId);
+    }
+
+    @Override
+    public void deleteFieldFromFriendship(long userId, long friendId, FriendshipStatus status) {
+        delegate.deleteFieldFromFriendship(userId, friendId, status);
+        cache.invalidate(userId);
+        if (status == FriendshipStatus.CONFIRMED) {
+            // встречная связь друга переводится в неподтверждённую
+            cache.invalidate(friendId);
+        }
+    }
+
+    private static long estimateSize(User user) {
+        return 72
+                + MemoryEstimates.ofString(user.getEmail())
+                + MemoryEstimates.ofString(user.getLogin())
+                + MemoryEstimates.ofString(user.getName())
+                + MemoryEstimates.ofMap(user.getFriends());
+    }
+
+    private static User copy(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setEmail(user.getEmail());
+        copy.setLogin(user.getLogin());
+        copy.setName(user.getName());
+        copy.setBirthday(user.getBirthday());
+        copy.setFriends(user.getFriends() == null ? null : new HashMap<>(user.getFriends()));
+        return copy;
+    }
+}
@@ -0,0 +1,30 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Грубая оценка занимаемой памяти для 64-битной JVM со сжатыми ссылками.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class MemoryEstimates {
+    private static final long STRING = 40;
+    private static final long HASH_COLLECTION = 64;
+    private static final long HASH_NODE = 36;
+    private static final long BOXED_LONG = 16;
+
+    static long ofString(String value) {
+        return value == null ? 0 : STRING + value.length();
+    }
+
+    static long ofSet(Collection<?> set) {
+        return set == null ? 0 : HASH_COLLECTION + set.size() * (HASH_NODE + BOXED_LONG);
+    }
+
+    static long ofMap(Map<?, ?> map) {
+        return map == null ? 0 : HASH_COLLECTION + map.size() * (HASH_NODE + BOXED_LONG);
+    }
+}
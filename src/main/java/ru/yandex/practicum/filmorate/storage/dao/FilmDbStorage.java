@@ -2,15 +2,25 @@ package ru.yandex.practicum.filmorate.storage.dao;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.dto.GenreDTO;
 import ru.yandex.practicum.filmorate.dto.RatingDTO;
 import ru.yandex.practicum.filmorate.exception.InternalServerException;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.LikeOutcome;
+import ru.yandex.practicum.filmorate.model.LikeSet;
 import ru.yandex.practicum.filmorate.model.Rating;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.mapper.FilmRowMapper;
@@ -18,76 +28,147 @@ import ru.yandex.practicum.filmorate.storage.mapper.GenreRowMapper;
 import ru.yandex.practicum.filmorate.storage.mapper.RatingRowMapper;
 
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
 import java.sql.Statement;
 import java.sql.Timestamp;
 import java.sql.Types;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Component("FilmDbStorage")
 @RequiredArgsConstructor
 public class FilmDbStorage implements FilmStorage {
+    private static final int IN_CLAUSE_LIMIT = 1000;
+    private static final String DUPLICATE_KEY_STATE = "23505";
+    private static final String INSERT_FILM_QUERY =
+            "INSERT INTO films(title, duration, description, release_date, rating_id, genre_mask) "
+            + "VALUES(?, ?, ?, ?, ?, ?)";
     private final JdbcTemplate jdbc;
     private final FilmRowMapper filmMapper;
     private final RatingRowMapper ratingMapper;
     private final GenreRowMapper genreMapper;
 
     public Collection<Film> getFilms() {
-        final String findAllQuery = "SELECT * FROM films";
-        return jdbc.query(findAllQuery, filmMapper)
-                .stream()
-                .peek(film -> {
-                    setRating(film);
-                    getGenreFromDB(film);
-                    setLikesFromDb(film);
-                })
-                .toList();
+        final String findAllQuery = "SELECT * FROM films ORDER BY id";
+        return queryFilms(findAllQuery);
+    }
+
+    public List<Film> getFilms(long afterId, int limit) {
+        final String findPageQuery = "SELECT * FROM films WHERE id > ? ORDER BY id LIMIT ?";
+        return queryFilms(findPageQuery, afterId, limit);
+    }
+
+    /**
+     * Передаёт фильмы с жанрами по одному, читая их одним запросом.
+     */
+    public void streamFilms(Consumer<Film> consumer) {
+        final String findAllQuery = "SELECT * FROM films ORDER BY id";
+
+        jdbc.query(findAllQuery, (RowCallbackHandler) rs -> consumer.accept(filmMapper.mapRow(rs, rs.getRow())));
+    }
+
+    /**
+     * Страница фильмов, у которых есть хотя бы один (matchAll = false) или все (matchAll = true)
+     * из указанных жанров. Фильтр проверяется по films.genre_mask без обращения к film_genres.
+     */
+    public List<Film> getFilmsByGenres(Set<Genre> genres, boolean matchAll, long afterId, int limit) {
+        int mask = Genre.toMask(genres);
+        if (matchAll) {
+            final String findAllGenresQuery =
+                    "SELECT * FROM films WHERE BITAND(genre_mask, ?) = ? AND id > ? ORDER BY id LIMIT ?";
+            return queryFilms(findAllGenresQuery, mask, mask, afterId, limit);
+        }
+        final String findByGenresQuery =
+                "SELECT * FROM films WHERE BITAND(genre_mask, ?) <> 0 AND id > ? ORDER BY id LIMIT ?";
+        return queryFilms(findByGenresQuery, mask, afterId, limit);
     }
 
     public Film getFilmById(Long filmId) {
         final String findById = "SELECT * FROM films WHERE id = ?";
-        try {
-            Film result = jdbc.queryForObject(findById, filmMapper, filmId);
-            if (result != null) {
-                setLikesFromDb(result);
-                setRating(result);
-                getGenreFromDB(result);
-            }
-            return result;
-        } catch (EmptyResultDataAccessException ignored) {
-            return null;
+        List<Film> result = queryFilms(findById, filmId);
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    /**
+     * Id любого другого фильма с таким названием или null; поиск идёт по индексу films_title_idx.
+     */
+    public Long findIdByTitle(String title, long excludeId) {
+        final String findIdQuery = "SELECT id FROM films WHERE title = ? AND id <> ? ORDER BY id LIMIT 1";
+        List<Long> ids = jdbc.queryForList(findIdQuery, Long.class, title, excludeId);
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+
+    public List<Film> getFilmsByIds(List<Long> ids) {
+        Map<Long, Film> filmsById = new HashMap<>();
+
+        for (int from = 0; from < ids.size(); from += IN_CLAUSE_LIMIT) {
+            List<Long> chunk = ids.subList(from, Math.min(from + IN_CLAUSE_LIMIT, ids.size()));
+            final String findByIdsQuery = "SELECT * FROM films WHERE id IN ("
+                    + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+            queryFilms(findByIdsQuery, chunk.toArray())
+                    .forEach(film -> filmsById.put(film.getId(), film));
         }
+
+        return ids.stream()
+                .map(filmsById::get)
+                .filter(Objects::nonNull)
+                .toList();
     }
 
-    public Film create(Film newFilm) {
-        GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
-        Integer rating = getRating(newFilm);
-        final String insertQuery = "INSERT INTO films(title, duration, description, release_date, rating_id) "
-                + "VALUES(?, ?, ?, ?, ?)";
+    public List<Film> getTopFilms(int count, Genre genre, Rating rating, Integer year) {
+        StringBuilder findTopQuery = new StringBuilder("SELECT f.* FROM films f WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
 
-        jdbc.update(connection -> {
-                PreparedStatement ps = connection.prepareStatement(insertQuery, Statement.RETURN_GENERATED_KEYS);
-                ps.setString(1, newFilm.getName());
+        if (genre != null) {
+            findTopQuery.append(" AND EXISTS (SELECT 1 FROM film_genres fg ")
+                    .append("WHERE fg.genre_id = ? AND fg.film_id = f.id)");
+            args.add(genre.toInt());
+        }
+        if (rating != null) {
+            findTopQuery.append(" AND f.rating_id = ?");
+            args.add(rating.toInt());
+        }
+        if (year != null) {
+            findTopQuery.append(" AND f.release_date >= ? AND f.release_date < ?");
+            args.add(Timestamp.valueOf(LocalDate.of(year, 1, 1).atStartOfDay()));
+            args.add(Timestamp.valueOf(LocalDate.of(year + 1, 1, 1).atStartOfDay()));
+        }
+        findTopQuery.append(" ORDER BY f.like_count DESC, f.id LIMIT ?");
+        args.add(count);
 
-                if (newFilm.getDuration() != null) {
-                    ps.setInt(2, newFilm.getDuration());
-                } else {
-                    ps.setNull(2, Types.INTEGER);
-                }
+        return queryFilms(findTopQuery.toString(), args.toArray());
+    }
 
-                ps.setString(3, newFilm.getDescription());
+    public Map<Long, Long> getLikeCounts() {
+        final String findCountsQuery = "SELECT id, like_count FROM films";
+        Map<Long, Long> counts = new HashMap<>();
+        RowCallbackHandler countHandler = rs -> counts.put(rs.getLong("id"), rs.getLong("like_count"));
 
-                if (newFilm.getReleaseDate() != null) {
-                    ps.setTimestamp(4, Timestamp.valueOf(newFilm.getReleaseDate().atStartOfDay()));
-                } else {
-                    ps.setNull(4, Types.DATE);
-                }
-                if (rating == null) {
-                    ps.setNull(5, Types.INTEGER);
-                } else {
-                    ps.setInt(5, rating);
-                }
+        jdbc.query(findCountsQuery, countHandler);
+        return counts;
+    }
+
+    /**
+     * Счётчик лайков фильма или null, если фильма нет.
+     */
+    public Long getLikeCount(long filmId) {
+        final String findCountQuery = "SELECT like_count FROM films WHERE id = ?";
+        List<Long> counts = jdbc.queryForList(findCountQuery, Long.class, filmId);
+        return counts.isEmpty() ? null : counts.get(0);
+    }
+
+    @Transactional
+    public Film create(Film newFilm) {
+        GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
+
+        jdbc.update(connection -> {
+                PreparedStatement ps = connection.prepareStatement(INSERT_FILM_QUERY, Statement.RETURN_GENERATED_KEYS);
+                setFilmParameters(ps, newFilm);
                 return ps;
             }, keyHolder
         );
@@ -97,7 +178,7 @@ public class FilmDbStorage implements FilmStorage {
             newFilm.setId(id);
 
             if (newFilm.getGenres() != null) {
-                setGenreToBD(newFilm);
+                insertGenres(id, newFilm.getGenres().stream().map(Genre::toInt).distinct().toList());
             }
             return newFilm;
         } else {
@@ -105,12 +186,58 @@ public class FilmDbStorage implements FilmStorage {
         }
     }
 
+    /**
+     * Записывает фильмы одной пакетной вставкой в films и одной в film_genres
+     * и проставляет им сгенерированные id.
+     */
+    @Transactional
+    public List<Film> createAll(List<Film> films) {
+        final String insertGenreQuery = "INSERT INTO film_genres(genre_id, film_id) VALUES(?, ?)";
+        if (films.isEmpty()) {
+            return films;
+        }
+
+        jdbc.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_FILM_QUERY, new String[]{"id"})) {
+                for (Film film : films) {
+                    setFilmParameters(ps, film);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    for (Film film : films) {
+                        if (!keys.next()) {
+                            throw new InternalServerException("Не удалось сохранить данные");
+                        }
+                        film.setId(keys.getLong(1));
+                    }
+                }
+            }
+            return null;
+        });
+
+        List<Object[]> genreRows = new ArrayList<>();
+        for (Film film : films) {
+            if (film.getGenres() != null) {
+                film.getGenres().forEach(genre -> genreRows.add(new Object[]{genre.toInt(), film.getId()}));
+            }
+        }
+        if (!genreRows.isEmpty()) {
+            jdbc.batchUpdate(insertGenreQuery, genreRows);
+        }
+        return films;
+    }
+
+    @Transactional
     public Film update(Film newFilm) {
         final String updateQuery =
                 "UPDATE films "
-                + "SET title = ?, duration = ?, description = ?, release_date = ?, rating_id = ? "
+                + "SET title = ?, duration = ?, description = ?, release_date = ?, rating_id = ?, "
+                + "genre_mask = COALESCE(?, genre_mask) "
                 + "WHERE id = ?";
         Integer rating = getRating(newFilm);
+        Integer genreMask = newFilm.getGenres() == null ? null : Genre.toMask(newFilm.getGenres());
 
         int rowsUpdated = jdbc.update(updateQuery,
                 newFilm.getName(),
@@ -118,6 +245,7 @@ public class FilmDbStorage implements FilmStorage {
                 newFilm.getDescription(),
                 Timestamp.valueOf(newFilm.getReleaseDate().atStartOfDay()),
                 rating,
+                genreMask,
                 newFilm.getId()
         );
 
@@ -130,26 +258,275 @@ public class FilmDbStorage implements FilmStorage {
         return getFilmById(newFilm.getId());
     }
 
+    /**
+     * Добавляет лайк одним запросом: строка вставляется только если существуют и фильм, и пользователь,
+     * а повтор отсекается ограничением uniq_film_user_CHK. Причина отказа выясняется только при ошибке.
+     */
+    @Transactional
     public void setLikeToDb(long filmId, long userId) {
-        final String insertQuery = "INSERT INTO likes(user_id, film_id) VALUES(?, ?)";
+        final String insertQuery =
+                "INSERT INTO likes(user_id, film_id) " +
+                "SELECT u.id, f.id FROM users AS u, films AS f WHERE u.id = ? AND f.id = ?";
+        final String counterQuery = "UPDATE films SET like_count = like_count + 1 WHERE id = ?";
 
-        int rowsAdded = jdbc.update(insertQuery, userId, filmId);
+        int rowsAdded;
+        try {
+            rowsAdded = jdbc.update(insertQuery, userId, filmId);
+        } catch (DuplicateKeyException e) {
+            throw new ValidationException("Лайк пользователя с id = " + userId
+                    + " уже добавлен фильму c id = " + filmId);
+        }
 
         if (rowsAdded == 0) {
+            throw missingFilmOrUser(filmId, userId);
+        }
+        if (jdbc.update(counterQuery, filmId) == 0) {
             throw new InternalServerException("Не удалось обновить данные");
         }
     }
 
+    @Transactional
     public void deleteLikeFromDb(long filmId, long userId) {
         final String dropQuery = "DELETE FROM likes WHERE user_id = ? AND film_id = ?";
+        final String counterQuery = "UPDATE films SET like_count = like_count - 1 WHERE id = ?";
 
         int rowsDropped = jdbc.update(dropQuery, userId, filmId);
 
-        if (rowsDropped != 1) {
+        if (rowsDropped == 0) {
+            throw missingLike(filmId, userId);
+        }
+        if (jdbc.update(counterQuery, filmId) == 0) {
             throw new InternalServerException("Не удалось обновить данные");
         }
     }
 
+    /**
+     * Добавляет пакет лайков пачками по IN_CLAUSE_LIMIT: на пачку два проверочных запроса
+     * (фильмы и пользователи) и два пакетных запроса. Результат каждого лайка и изменение
+     * like_count берутся из счётчиков строк пакета, а не из предварительной выборки,
+     * поэтому параллельные лайки не ломают пачку и не сбивают счётчик.
+     */
+    @Transactional
+    public List<LikeOutcome> setLikesToDb(List<Like> likes) {
+        return applyLikes(likes, true);
+    }
+
+    @Transactional
+    public List<LikeOutcome> deleteLikesFromDb(List<Like> likes) {
+        return applyLikes(likes, false);
+    }
+
+    public boolean isLiked(long filmId, long userId) {
+        final String findLikeQuery = "SELECT COUNT(*) FROM likes WHERE user_id = ? AND film_id = ?";
+        Integer count = jdbc.queryForObject(findLikeQuery, Integer.class, userId, filmId);
+        return count != null && count > 0;
+    }
+
+    /**
+     * Все лайки фильма одним запросом, собранные сразу в LikeSet без промежуточной коллекции Long.
+     */
+    public LikeSet getLikes(long filmId) {
+        final String findLikesQuery = "SELECT user_id FROM likes WHERE film_id = ?";
+        LikeSet.Builder likes = new LikeSet.Builder();
+
+        jdbc.query(findLikesQuery, (RowCallbackHandler) rs -> likes.add(rs.getLong("user_id")), filmId);
+        return likes.build();
+    }
+
+    public List<Long> getLikedFilmIds(long userId, long afterFilmId, int limit) {
+        final String findLikedQuery =
+                "SELECT film_id FROM likes WHERE user_id = ? AND film_id > ? ORDER BY film_id LIMIT ?";
+        return jdbc.queryForList(findLikedQuery, Long.class, userId, afterFilmId, limit);
+    }
+    private List<LikeOutcome> applyLikes(List<Like> likes, boolean add) {
+        final String counterQuery = "UPDATE films SET like_count = like_count + ? WHERE id = ?";
+        List<LikeOutcome> outcomes = new ArrayList<>(Collections.nCopies(likes.size(), null));
+
+        for (int from = 0; from < likes.size(); from += IN_CLAUSE_LIMIT) {
+            List<Like> chunk = likes.subList(from, Math.min(from + IN_CLAUSE_LIMIT, likes.size()));
+            Set<Long> knownFilmIds = findExistingIds("films",
+                    chunk.stream().map(Like::getFilmId).collect(Collectors.toSet()));
+            Set<Long> knownUserIds = findExistingIds("users",
+                    chunk.stream().map(Like::getUserId).collect(Collectors.toSet()));
+
+            List<Like> candidates = new ArrayList<>();
+            List<Integer> positions = new ArrayList<>();
+            for (int i = 0; i < chunk.size(); i++) {
+                Like like = chunk.get(i);
+                if (!knownFilmIds.contains(like.getFilmId())) {
+                    outcomes.set(from + i, LikeOutcome.FILM_NOT_FOUND);
+                } else if (!knownUserIds.contains(like.getUserId())) {
+                    outcomes.set(from + i, LikeOutcome.USER_NOT_FOUND);
+                } else {
+                    candidates.add(like);
+                    positions.add(from + i);
+                }
+            }
+            if (candidates.isEmpty()) {
+                continue;
+            }
+
+            int[] counts = add ? insertLikes(candidates) : dropLikes(candidates);
+            Map<Long, Long> deltas = new HashMap<>();
+            for (int i = 0; i < candidates.size(); i++) {
+                boolean changed = counts[i] > 0;
+                if (changed) {
+                    deltas.merge(candidates.get(i).getFilmId(), add ? 1L : -1L, Long::sum);
+                }
+                outcomes.set(positions.get(i), add
+                        ? (changed ? LikeOutcome.ADDED : LikeOutcome.ALREADY_LIKED)
+                        : (changed ? LikeOutcome.REMOVED : LikeOutcome.NOT_LIKED));
+            }
+
+            if (!deltas.isEmpty()) {
+                jdbc.batchUpdate(counterQuery, deltas.entrySet(), deltas.size(), (ps, delta) -> {
+                    ps.setLong(1, delta.getValue());
+                    ps.setLong(2, delta.getKey());
+                });
+            }
+        }
+        return outcomes;
+    }
+
+    /**
+     * Вставляет пакет лайков, пропуская уже существующие (в том числе повторы внутри пакета),
+     * и возвращает число вставленных строк для каждого лайка. Если пакет упал на дубликате,
+     * вставленном параллельной транзакцией, он откатывается до точки сохранения
+     * и лайки вставляются по одному, а дубликат считается уже поставленным лайком.
+     */
+    private int[] insertLikes(List<Like> likes) {
+        final String insertQuery =
+                "INSERT INTO likes(user_id, film_id) " +
+                "SELECT CAST(? AS BIGINT), CAST(? AS BIGINT) " +
+                "WHERE NOT EXISTS (SELECT 1 FROM likes WHERE user_id = ? AND film_id = ?)";
+
+        return jdbc.execute((ConnectionCallback<int[]>) connection -> {
+            Savepoint savepoint = connection.setSavepoint();
+            try (PreparedStatement ps = connection.prepareStatement(insertQuery)) {
+                for (Like like : likes) {
+                    setLikeParameters(ps, like);
+                    ps.addBatch();
+                }
+                int[] counts = ps.executeBatch();
+                connection.releaseSavepoint(savepoint);
+                return counts;
+            } catch (SQLException e) {
+                if (!isDuplicateKey(e)) {
+                    throw e;
+                }
+                connection.rollback(savepoint);
+            }
+
+            int[] counts = new int[likes.size()];
+            try (PreparedStatement ps = connection.prepareStatement(insertQuery)) {
+                for (int i = 0; i < likes.size(); i++) {
+                    setLikeParameters(ps, likes.get(i));
+                    try {
+                        counts[i] = ps.executeUpdate();
+                    } catch (SQLException e) {
+                        if (!isDuplicateKey(e)) {
+                            throw e;
+                        }
+                    }
+                }
+            }
+            return counts;
+        });
+    }
+
+    private int[] dropLikes(List<Like> likes) {
+        final String dropQuery = "DELETE FROM likes WHERE user_id = ? AND film_id = ?";
+        return jdbc.batchUpdate(dropQuery, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setLong(1, likes.get(i).getUserId());
+                ps.setLong(2, likes.get(i).getFilmId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return likes.size();
+            }
+        });
+    }
+
+    private static void setLikeParameters(PreparedStatement ps, Like like) throws SQLException {
+        ps.setLong(1, like.getUserId());
+        ps.setLong(2, like.getFilmId());
+        ps.setLong(3, like.getUserId());
+        ps.setLong(4, like.getFilmId());
+    }
+
+    private static boolean isDuplicateKey(SQLException e) {
+        for (SQLException cause = e; cause != null; cause = cause.getNextException()) {
+            if (DUPLICATE_KEY_STATE.equals(cause.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Set<Long> findExistingIds(String table, Set<Long> ids) {
+        final String findIdsQuery = "SELECT id FROM " + table + " WHERE id IN ("
+                + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")";
+        return new HashSet<>(jdbc.queryForList(findIdsQuery, Long.class, ids.toArray()));
+    }
+
+    private RuntimeException missingFilmOrUser(long filmId, long userId) {
+        final String existsQuery =
+                "SELECT (SELECT COUNT(*) FROM films WHERE id = ?) AS films, " +
+                "(SELECT COUNT(*) FROM users WHERE id = ?) AS users";
+
+        return jdbc.queryForObject(existsQuery, (rs, rowNum) -> {
+            if (rs.getInt("films") == 0) {
+                return new NotFoundException("Фильм с id = " + filmId + " не найден");
+            }
+            if (rs.getInt("users") == 0) {
+                return new NotFoundException("Пользователь с id = " + userId + " не найден");
+            }
+            return new InternalServerException("Не удалось обновить данные");
+        }, filmId, userId);
+    }
+
+    private RuntimeException missingLike(long filmId, long userId) {
+        RuntimeException missing = missingFilmOrUser(filmId, userId);
+        if (missing instanceof NotFoundException) {
+            return missing;
+        }
+
+        List<Long> likedFilmIds = getLikedFilmIds(userId, 0, 1);
+        if (likedFilmIds.isEmpty()) {
+            return new NotFoundException("Пользователь с id = " + userId + " не ставил лайк");
+        }
+        return new ValidationException("Id фильма = " + filmId
+                + ".\nПользователь с id = " + userId + " поставил лайк фильму c id = " + likedFilmIds.get(0));
+    }
+
+
+    /**
+     * Сверяет счётчики лайков с таблицей likes диапазонами id по batchSize фильмов
+     * и исправляет расхождения. Возвращает количество исправленных фильмов.
+     */
+    public int reconcileLikeCounts(int batchSize) {
+        final String repairQuery =
+                "UPDATE films f " +
+                "SET like_count = (SELECT COUNT(*) FROM likes l WHERE l.film_id = f.id) " +
+                "WHERE f.id BETWEEN ? AND ? " +
+                "AND f.like_count <> (SELECT COUNT(*) FROM likes l WHERE l.film_id = f.id)";
+        Long minId = jdbc.queryForObject("SELECT MIN(id) FROM films", Long.class);
+        Long maxId = jdbc.queryForObject("SELECT MAX(id) FROM films", Long.class);
+
+        if (minId == null || maxId == null) {
+            return 0;
+        }
+
+        int repaired = 0;
+        for (long from = minId; from <= maxId; from += batchSize) {
+            repaired += jdbc.update(repairQuery, from, from + batchSize - 1);
+        }
+        return repaired;
+    }
+
     public Collection<RatingDTO> getRatingList() {
         final String findAllQuery = "SELECT * FROM rating";
         return jdbc.query(findAllQuery, ratingMapper);
@@ -178,105 +555,81 @@ public class FilmDbStorage implements FilmStorage {
         }
     }
 
-    private void getGenreFromDB(Film film) {
-        final String findGenreQuery =
-                "Select DISTINCT g.genre " +
-                "FROM genre g " +
-                "JOIN film_genres fg ON fg.genre_id = g.id " +
-                "JOIN films f ON fg.film_id = f.id " +
-                "WHERE f.id = ?";
-        List<String> genres = jdbc.queryForList(findGenreQuery, String.class, film.getId());
-
-        film.setGenres(genres.stream().map(Genre::from).collect(Collectors.toSet()));
-    }
-
+    /**
+     * Приводит жанры фильма в БД к film.getGenres(): читает текущие id жанров и применяет
+     * только разницу одним пакетным INSERT и одним пакетным DELETE. Null означает «не менять».
+     */
     private void setGenreToBD(Film film) {
         if (film.getGenres() == null) {
             return;
         }
+        final String findGenresQuery = "SELECT genre_id FROM film_genres WHERE film_id = ?";
 
-        GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
+        Set<Integer> requested = film.getGenres().stream()
+                .map(Genre::toInt)
+                .collect(Collectors.toSet());
+        Set<Integer> current = new HashSet<>(jdbc.queryForList(findGenresQuery, Integer.class, film.getId()));
+
+        List<Integer> added = requested.stream().filter(genre -> !current.contains(genre)).toList();
+        List<Integer> removed = current.stream().filter(genre -> !requested.contains(genre)).toList();
+        insertGenres(film.getId(), added);
+        deleteGenres(film.getId(), removed);
+    }
+
+    private void insertGenres(long filmId, List<Integer> genreIds) {
+        if (genreIds.isEmpty()) {
+            return;
+        }
         final String insertQuery = "INSERT INTO film_genres(genre_id, film_id) VALUES(?, ?)";
-        final String getGenreId = "SELECT g.id FROM genre AS g WHERE g.genre = ?";
-
-        Set<Integer> genresId = Optional.of(film.getGenres())
-                .map(genres -> genres.stream()
-                        .map(Genre::toString)
-                        .map(str -> getIdByQuery(getGenreId, str))
-                        .collect(Collectors.toSet()))
-                .get();
-
-        deleteGenreFromFilm(film);
-
-        genresId.stream().forEach(genre -> {
-            jdbc.update(connection -> {
-                        PreparedStatement ps = connection.prepareStatement(insertQuery, Statement.RETURN_GENERATED_KEYS);
-                        ps.setInt(1, genre);
-                        ps.setLong(2, film.getId());
-                        return ps;
-                    }, keyHolder
-            );
-            Long id = keyHolder.getKeyAs(Long.class);
-
-            if (id == null) {
-                throw new InternalServerException("Не удалось сохранить данные");
-            }
+
+        jdbc.batchUpdate(insertQuery, genreIds, genreIds.size(), (ps, genreId) -> {
+            ps.setInt(1, genreId);
+            ps.setLong(2, filmId);
         });
     }
 
-    private void deleteGenreFromFilm(Film film) {
-        final String dropQuery = "DELETE FROM film_genres WHERE film_id = ?";
+    private void deleteGenres(long filmId, List<Integer> genreIds) {
+        if (genreIds.isEmpty()) {
+            return;
+        }
+        final String dropQuery = "DELETE FROM film_genres WHERE genre_id = ? AND film_id = ?";
 
-        jdbc.update(dropQuery, film.getId());
+        jdbc.batchUpdate(dropQuery, genreIds, genreIds.size(), (ps, genreId) -> {
+            ps.setInt(1, genreId);
+            ps.setLong(2, filmId);
+        });
     }
 
-    private void setRating(Film film) {
-        final String findRatingQuery =
-                "SELECT r.rating " +
-                "FROM rating r " +
-                "JOIN films f ON r.id = f.rating_id " +
-                "WHERE f.id = ?";
-        try {
-            String rating = jdbc.queryForObject(findRatingQuery, String.class, film.getId());
+    private void setFilmParameters(PreparedStatement ps, Film film) throws SQLException {
+        Integer rating = getRating(film);
+        ps.setString(1, film.getName());
 
-            if (rating != null) {
-                film.setRating(Rating.from(rating));
-            } else {
-                film.setRating(null);
-            }
-        } catch (EmptyResultDataAccessException ignored) {
-            film.setRating(null);
+        if (film.getDuration() != null) {
+            ps.setInt(2, film.getDuration());
+        } else {
+            ps.setNull(2, Types.INTEGER);
         }
-    }
 
-    private Integer getRating(Film film) {
-        if (film.getRating() == null) {
-            return null;
-        }
+        ps.setString(3, film.getDescription());
 
-        final String findRatingQuery = "SELECT r.id FROM rating AS r WHERE r.rating = ?";
-        try {
-            return jdbc.queryForObject(findRatingQuery, Integer.class, film.getRating().toString());
-        } catch (EmptyResultDataAccessException ignored) {
-            return null;
+        if (film.getReleaseDate() != null) {
+            ps.setTimestamp(4, Timestamp.valueOf(film.getReleaseDate().atStartOfDay()));
+        } else {
+            ps.setNull(4, Types.DATE);
         }
+        if (rating == null) {
+            ps.setNull(5, Types.INTEGER);
+        } else {
+            ps.setInt(5, rating);
+        }
+        ps.setInt(6, film.getGenres() == null ? 0 : Genre.toMask(film.getGenres()));
     }
 
-    private Integer getIdByQuery(String query, String key) {
-        try {
-            return jdbc.queryForObject(query, Integer.class, key);
-        } catch (EmptyResultDataAccessException ignored) {
-            return null;
-        }
+    private Integer getRating(Film film) {
+        return film.getRating() == null ? null : film.getRating().toInt();
     }
 
-    private void setLikesFromDb(Film film) {
-        final String findLikesQuery =
-                "Select DISTINCT l.user_id " +
-                "FROM likes l " +
-                "JOIN films f ON l.film_id = f.id " +
-                "WHERE f.id = ?";
-        List<Long> likes = jdbc.queryForList(findLikesQuery, Long.class, film.getId());
-        film.setLikes(new HashSet<>(likes));
+    private List<Film> queryFilms(String query, Object... args) {
+        return jdbc.query(query, filmMapper, args);
     }
 }
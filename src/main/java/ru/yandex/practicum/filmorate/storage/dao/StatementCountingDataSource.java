@@ -0,0 +1,72 @@
+package ru.yandex.practicum.filmorate.storage.dao;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Источник данных, который считает запросы, выполненные в текущем потоке.
+ * Пакетный запрос считается одним. Счётчик сбрасывается на каждый HTTP-запрос
+ * в StatementCountFilter, поэтому видно, сколько обращений к БД стоил запрос.
+ */
+public class StatementCountingDataSource extends DelegatingDataSource {
+    private static final ThreadLocal<AtomicLong> COUNT = ThreadLocal.withInitial(AtomicLong::new);
+
+    public StatementCountingDataSource(DataSource target) {
+        super(target);
+    }
+
+    public static long count() {
+        return COUNT.get().get();
+    }
+
+    public static void reset() {
+        COUNT.get().set(0);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return countingConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return countingConnection(super.getConnection(username, password));
+    }
+
+    private static Connection countingConnection(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(StatementCountingDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    return result instanceof Statement statement
+                            ? countingStatement(statement, method.getReturnType())
+                            : result;
+                });
+    }
+
+    private static Object countingStatement(Statement statement, Class<?> type) {
+        return Proxy.newProxyInstance(StatementCountingDataSource.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("execute")) {
+                        COUNT.get().incrementAndGet();
+                    }
+                    return invoke(statement, method, args);
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
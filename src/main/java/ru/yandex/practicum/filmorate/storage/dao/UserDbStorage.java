@@ -3,37 +3,115 @@ package ru.yandex.practicum.filmorate.storage.dao;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.InternalServerException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Friend;
 import ru.yandex.practicum.filmorate.model.FriendshipStatus;
+import ru.yandex.practicum.filmorate.model.Suggestion;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
 import ru.yandex.practicum.filmorate.storage.mapper.UserRowMapper;
 
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Timestamp;
 import java.sql.Types;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
 
 @Slf4j
 @Component
 @Qualifier
 @RequiredArgsConstructor
 public class UserDbStorage implements UserStorage {
+    private static final int IN_CLAUSE_LIMIT = 1000;
+    private static final String INSERT_USER_QUERY = "INSERT INTO users(login, email, name, birthday) "
+            + "VALUES(?, ?, ?, ?)";
     protected final JdbcTemplate jdbc;
     protected final UserRowMapper mapper;
 
     public Collection<User> getUsers() {
-        final String findAllQuery = "SELECT * FROM users";
-        return jdbc.query(findAllQuery, mapper)
-                .stream()
-                .peek(this::setFriendsToUser)
+        final String findAllQuery = "SELECT * FROM users ORDER BY id";
+        return setFriendsToUsers(jdbc.query(findAllQuery, mapper));
+    }
+
+    public List<User> getUsers(long afterId, int limit) {
+        final String findPageQuery = "SELECT * FROM users WHERE id > ? ORDER BY id LIMIT ?";
+        return setFriendsToUsers(jdbc.query(findPageQuery, mapper, afterId, limit));
+    }
+
+    public void streamUsers(Consumer<User> consumer) {
+        final String findAllQuery = "SELECT * FROM users ORDER BY id";
+        RowCallbackHandler userHandler = rs -> consumer.accept(mapper.mapRow(rs, rs.getRow()));
+        jdbc.query(findAllQuery, userHandler);
+    }
+
+    /**
+     * Передаёт все связи дружбы по одной в порядке (user_id, friend_id) одним запросом.
+     */
+    public void streamFriendships(FriendshipConsumer consumer) {
+        final String findAllQuery =
+                "SELECT f.user_id, f.friend_id, s.status_name " +
+                "FROM friendship AS f " +
+                "JOIN friendship_status AS s ON f.status_id = s.id " +
+                "ORDER BY f.user_id, f.friend_id";
+        RowCallbackHandler friendshipHandler = rs -> consumer.accept(rs.getLong("user_id"),
+                rs.getLong("friend_id"), FriendshipStatus.from(rs.getString("status_name")));
+        jdbc.query(findAllQuery, friendshipHandler);
+    }
+
+    /**
+     * Связи дружбы пользователей из списка; запросы идут пачками по IN_CLAUSE_LIMIT
+     * и читаются по индексу uniq_friend_user_CHK(user_id, friend_id).
+     */
+    public void streamFriendships(List<Long> userIds, FriendshipConsumer consumer) {
+        RowCallbackHandler friendshipHandler = rs -> consumer.accept(rs.getLong("user_id"),
+                rs.getLong("friend_id"), FriendshipStatus.from(rs.getString("status_name")));
+
+        for (int from = 0; from < userIds.size(); from += IN_CLAUSE_LIMIT) {
+            List<Long> chunk = userIds.subList(from, Math.min(from + IN_CLAUSE_LIMIT, userIds.size()));
+            final String findByUsersQuery =
+                    "SELECT f.user_id, f.friend_id, s.status_name " +
+                    "FROM friendship AS f " +
+                    "JOIN friendship_status AS s ON f.status_id = s.id " +
+                    "WHERE f.user_id IN (" + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+            jdbc.query(findByUsersQuery, friendshipHandler, chunk.toArray());
+        }
+    }
+
+    /**
+     * Пользователи по списку id в порядке этого списка, без друзей; запросы идут пачками по IN_CLAUSE_LIMIT.
+     */
+    public List<User> getUsersByIds(List<Long> ids) {
+        Map<Long, User> usersById = new HashMap<>();
+
+        for (int from = 0; from < ids.size(); from += IN_CLAUSE_LIMIT) {
+            List<Long> chunk = ids.subList(from, Math.min(from + IN_CLAUSE_LIMIT, ids.size()));
+            final String findByIdsQuery = "SELECT * FROM users WHERE id IN ("
+                    + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+            jdbc.query(findByIdsQuery, mapper, chunk.toArray())
+                    .forEach(user -> usersById.put(user.getId(), user));
+        }
+
+        return ids.stream()
+                .map(usersById::get)
+                .filter(Objects::nonNull)
                 .toList();
     }
 
@@ -48,27 +126,104 @@ public class UserDbStorage implements UserStorage {
         }
     }
 
+    /**
+     * Друзья пользователя со статусом дружбы одним запросом по friendship и users,
+     * страница по friend_id. Индекс uniq_friend_user_CHK(user_id, friend_id) покрывает выборку.
+     */
+    public List<Friend> getFriends(long userId, long afterFriendId, int limit) {
+        final String findFriendsQuery =
+                "SELECT u.*, s.status_name AS status " +
+                "FROM friendship AS f " +
+                "JOIN users AS u ON u.id = f.friend_id " +
+                "JOIN friendship_status AS s ON s.id = f.status_id " +
+                "WHERE f.user_id = ? AND f.friend_id > ? " +
+                "ORDER BY f.friend_id LIMIT ?";
+
+        return jdbc.query(findFriendsQuery, (rs, rowNum) ->
+                new Friend(mapper.mapRow(rs, rowNum), FriendshipStatus.from(rs.getString("status"))),
+                userId, afterFriendId, limit);
+    }
+
+    /**
+     * Общие друзья двух пользователей: самосоединение friendship по friend_id,
+     * каждая сторона читается по индексу uniq_friend_user_CHK(user_id, friend_id).
+     */
+    public List<User> getMutualFriends(long userId, long otherId) {
+        final String findMutualQuery =
+                "SELECT u.* " +
+                "FROM friendship AS a " +
+                "JOIN friendship AS b ON b.friend_id = a.friend_id " +
+                "JOIN users AS u ON u.id = a.friend_id " +
+                "WHERE a.user_id = ? AND b.user_id = ? " +
+                "ORDER BY u.id";
+        return jdbc.query(findMutualQuery, mapper, userId, otherId);
+    }
+
+    public int countMutualFriends(long userId, long otherId) {
+        final String countMutualQuery =
+                "SELECT COUNT(*) " +
+                "FROM friendship AS a " +
+                "JOIN friendship AS b ON b.friend_id = a.friend_id " +
+                "WHERE a.user_id = ? AND b.user_id = ?";
+        Integer count = jdbc.queryForObject(countMutualQuery, Integer.class, userId, otherId);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Друзья друзей, ранжированные по числу общих друзей. Разворачиваются не больше
+     * maxExpandedFriends первых друзей пользователя, отбор top-limit выполняет H2.
+     */
+    public List<Suggestion> getSuggestedFriends(long userId, int maxExpandedFriends, int limit) {
+        final String findSuggestionsQuery =
+                "SELECT u.*, c.mutual " +
+                "FROM (SELECT b.friend_id AS candidate_id, COUNT(*) AS mutual " +
+                "      FROM (SELECT friend_id FROM friendship WHERE user_id = ? " +
+                "            ORDER BY friend_id LIMIT ?) AS a " +
+                "      JOIN friendship AS b ON b.user_id = a.friend_id " +
+                "      WHERE b.friend_id <> ? AND NOT EXISTS (" +
+                "          SELECT 1 FROM friendship AS own " +
+                "          WHERE own.user_id = ? AND own.friend_id = b.friend_id) " +
+                "      GROUP BY b.friend_id " +
+                "      ORDER BY mutual DESC, candidate_id LIMIT ?) AS c " +
+                "JOIN users AS u ON u.id = c.candidate_id " +
+                "ORDER BY c.mutual DESC, u.id";
+
+        return jdbc.query(findSuggestionsQuery, (rs, rowNum) ->
+                new Suggestion(mapper.mapRow(rs, rowNum), rs.getInt("mutual")),
+                userId, maxExpandedFriends, userId, userId, limit);
+    }
+
+    public boolean existsByEmail(String email) {
+        final String countQuery = "SELECT COUNT(*) FROM users WHERE email = ?";
+        Integer count = jdbc.queryForObject(countQuery, Integer.class, email);
+        return count != null && count > 0;
+    }
+
+    public boolean existsByLogin(String login) {
+        final String countQuery = "SELECT COUNT(*) FROM users WHERE login = ?";
+        Integer count = jdbc.queryForObject(countQuery, Integer.class, login);
+        return count != null && count > 0;
+    }
+
+    /**
+     * Повтор email или login при одновременной регистрации отсекается ограничениями UNIQUE
+     * и возвращается как ValidationException.
+     */
     public User create(User newUser) {
         GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
-        final String insertQuery = "INSERT INTO users(login, email, name, birthday) " +
-                "VALUES(?, ?, ?, ?)";
 
-        jdbc.update(
-                connection -> {
-                    PreparedStatement ps = connection.prepareStatement(insertQuery, Statement.RETURN_GENERATED_KEYS);
-                    ps.setString(1, newUser.getLogin());
-                    ps.setString(2, newUser.getEmail());
-                    ps.setString(3, newUser.getName());
-
-                    if (newUser.getBirthday() != null) {
-                        ps.setTimestamp(4, Timestamp.valueOf(newUser.getBirthday().atStartOfDay()));
-                    } else {
-                        ps.setNull(4, Types.DATE);
-                    }
-
-                    return ps;
-                }, keyHolder
-        );
+        try {
+            jdbc.update(
+                    connection -> {
+                        PreparedStatement ps =
+                                connection.prepareStatement(INSERT_USER_QUERY, Statement.RETURN_GENERATED_KEYS);
+                        setUserParameters(ps, newUser);
+                        return ps;
+                    }, keyHolder
+            );
+        } catch (DuplicateKeyException e) {
+            throw duplicateUser(newUser);
+        }
 
         Long id = keyHolder.getKeyAs(Long.class);
         if (id != null) {
@@ -79,18 +234,81 @@ public class UserDbStorage implements UserStorage {
         }
     }
 
+    /**
+     * Записывает пользователей одной пакетной вставкой и проставляет им сгенерированные id.
+     */
+    @Transactional
+    public List<User> createAll(List<User> users) {
+        if (users.isEmpty()) {
+            return users;
+        }
+
+        jdbc.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_USER_QUERY, new String[]{"id"})) {
+                for (User user : users) {
+                    setUserParameters(ps, user);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    for (User user : users) {
+                        if (!keys.next()) {
+                            throw new InternalServerException("Не удалось сохранить данные");
+                        }
+                        user.setId(keys.getLong(1));
+                    }
+                }
+            }
+            return null;
+        });
+        return users;
+    }
+
+    /**
+     * Пользователи, у которых email или login входит в переданные наборы, одним запросом.
+     * Каждое условие проверяется отдельной веткой UNION по своему уникальному индексу:
+     * OR по двум столбцам H2 выполняет полным просмотром таблицы.
+     * Друзья при этом не загружаются.
+     */
+    public List<User> getUsersByEmailsOrLogins(Collection<String> emails, Collection<String> logins) {
+        List<String> probes = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+        if (!emails.isEmpty()) {
+            probes.add("SELECT * FROM users WHERE email IN ("
+                    + String.join(", ", Collections.nCopies(emails.size(), "?")) + ")");
+            args.addAll(emails);
+        }
+        if (!logins.isEmpty()) {
+            probes.add("SELECT * FROM users WHERE login IN ("
+                    + String.join(", ", Collections.nCopies(logins.size(), "?")) + ")");
+            args.addAll(logins);
+        }
+        if (probes.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        final String findQuery = String.join(" UNION ", probes);
+        return jdbc.query(findQuery, mapper, args.toArray());
+    }
+
     public User update(User newUser) {
         final String updateQuery =
                 "UPDATE users " +
                 "SET login = ?, email = ?, name = ?, birthday = ? " +
                 "WHERE id = ?";
-        int rowsUpdated = jdbc.update(updateQuery,
-                newUser.getLogin(),
-                newUser.getEmail(),
-                newUser.getName(),
-                Timestamp.valueOf(newUser.getBirthday().atStartOfDay()),
-                newUser.getId()
-        );
+        int rowsUpdated;
+        try {
+            rowsUpdated = jdbc.update(updateQuery,
+                    newUser.getLogin(),
+                    newUser.getEmail(),
+                    newUser.getName(),
+                    Timestamp.valueOf(newUser.getBirthday().atStartOfDay()),
+                    newUser.getId()
+            );
+        } catch (DuplicateKeyException e) {
+            throw duplicateUser(newUser);
+        }
 
         if (rowsUpdated == 0) {
             throw new InternalServerException("Не удалось обновить данные");
@@ -167,4 +385,64 @@ public class UserDbStorage implements UserStorage {
 
         user.setFriends(friends);
     }
+
+    private List<User> setFriendsToUsers(List<User> users) {
+        if (users.isEmpty()) {
+            return users;
+        }
+
+        Map<Long, User> usersById = new HashMap<>();
+        for (User user : users) {
+            user.setFriends(new HashMap<>());
+            usersById.put(user.getId(), user);
+        }
+
+        String filter;
+        Object[] args;
+        if (usersById.size() <= IN_CLAUSE_LIMIT) {
+            filter = "f.user_id IN (" + String.join(", ", Collections.nCopies(usersById.size(), "?")) + ")";
+            args = usersById.keySet().toArray();
+        } else {
+            filter = "f.user_id BETWEEN ? AND ?";
+            args = new Object[]{Collections.min(usersById.keySet()), Collections.max(usersById.keySet())};
+        }
+
+        final String findAllQuery =
+                "SELECT f.user_id AS usr, f.friend_id AS friend, s.status_name AS status " +
+                "FROM friendship AS f " +
+                "JOIN friendship_status AS s ON f.status_id = s.id " +
+                "WHERE " + filter;
+
+        RowCallbackHandler friendHandler = rs -> {
+            User user = usersById.get(rs.getLong("usr"));
+            if (user != null) {
+                user.getFriends().put(rs.getLong("friend"), FriendshipStatus.from(rs.getString("status")));
+            }
+        };
+        jdbc.query(findAllQuery, friendHandler, args);
+
+        return users;
+    }
+
+    private ValidationException duplicateUser(User user) {
+        final String findEmailOwnerQuery = "SELECT COUNT(*) FROM users WHERE email = ? AND id <> ?";
+        Integer emailOwners = jdbc.queryForObject(findEmailOwnerQuery, Integer.class,
+                user.getEmail(), user.getId() == null ? 0L : user.getId());
+
+        return emailOwners != null && emailOwners > 0
+                ? new ValidationException("Email " + user.getEmail() + " уже зарегистрирован")
+                : new ValidationException("Login " + user.getLogin() + " уже зарегистрирован");
+    }
+
+    private void setUserParameters(PreparedStatement ps, User user) throws SQLException {
+        ps.setString(1, user.getLogin());
+        ps.setString(2, user.getEmail());
+        ps.setString(3, user.getName());
+
+        if (user.getBirthday() != null) {
+            ps.setTimestamp(4, Timestamp.valueOf(user.getBirthday().atStartOfDay()));
+        } else {
+            ps.setNull(4, Types.DATE);
+        }
+    }
 }
@@ -3,6 +3,8 @@ package ru.yandex.practicum.filmorate.storage.mapper;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Rating;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -16,6 +18,8 @@ public class FilmRowMapper implements RowMapper<Film> {
         film.setName(resultSet.getString("title"));
         film.setDescription(resultSet.getString("description"));
         film.setDuration(resultSet.getInt("duration"));
+        film.setLikeCount(resultSet.getLong("like_count"));
+        film.setGenres(Genre.fromMask(resultSet.getInt("genre_mask")));
 
         if (resultSet.getTimestamp("release_date") == null) {
             film.setReleaseDate(null);
@@ -23,6 +27,9 @@ public class FilmRowMapper implements RowMapper<Film> {
             film.setReleaseDate(resultSet.getTimestamp("release_date").toLocalDateTime().toLocalDate());
         }
 
+        int ratingId = resultSet.getInt("rating_id");
+        film.setRating(resultSet.wasNull() ? null : Rating.from(ratingId));
+
         return film;
     }
 }
@@ -19,7 +19,9 @@ CREATE TABLE IF NOT EXISTS films (
     description VARCHAR(200) DEFAULT NULL,
     duration INT DEFAULT NULL,
     release_date TIMESTAMP DEFAULT NULL,
-    rating_id INT REFERENCES rating(id) ON DELETE SET NULL
+    rating_id INT REFERENCES rating(id) ON DELETE SET NULL,
+    like_count BIGINT NOT NULL DEFAULT 0,
+    genre_mask INT NOT NULL DEFAULT 0
 );
 
 CREATE TABLE IF NOT EXISTS users (
@@ -51,4 +53,17 @@ CREATE TABLE IF NOT EXISTS friendship (
     status_id INT NOT NULL REFERENCES friendship_status(id) ON DELETE RESTRICT,
     CONSTRAINT friend_himself_CHK CHECK (user_id != friend_id),
     CONSTRAINT uniq_friend_user_CHK UNIQUE (user_id, friend_id)
-);
\ No newline at end of file
+);
+
+-- Для файловых БД, созданных до появления столбцов
+ALTER TABLE films ADD COLUMN IF NOT EXISTS like_count BIGINT NOT NULL DEFAULT 0;
+-- Битовая маска жанров фильма (бит genre_id - 1), дублирует film_genres для чтения без join
+ALTER TABLE films ADD COLUMN IF NOT EXISTS genre_mask INT NOT NULL DEFAULT 0;
+
+CREATE INDEX IF NOT EXISTS films_like_count_idx ON films(like_count DESC, id);
+
+-- Индекс film_genres(genre_id, film_id) уже создан ограничением uniq_film_genre_CHK
+CREATE INDEX IF NOT EXISTS films_rating_release_idx ON films(rating_id, release_date);
+
+-- Поиск фильма по названию; users.email и users.login индексируются своими ограничениями UNIQUE
+CREATE INDEX IF NOT EXISTS films_title_idx ON films(title);
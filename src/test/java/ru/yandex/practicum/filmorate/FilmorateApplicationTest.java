@@ -9,9 +9,13 @@ import org.springframework.test.context.jdbc.Sql;
 import org.assertj.core.api.Assertions.*;
 import ru.yandex.practicum.filmorate.dto.GenreDTO;
 import ru.yandex.practicum.filmorate.dto.RatingDTO;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.*;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.TransactionAwareDataSourceProxy;
 import ru.yandex.practicum.filmorate.storage.dao.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.dao.StatementCountingDataSource;
 import ru.yandex.practicum.filmorate.storage.dao.UserDbStorage;
 import ru.yandex.practicum.filmorate.storage.mapper.FilmRowMapper;
 import ru.yandex.practicum.filmorate.storage.mapper.GenreRowMapper;
@@ -22,6 +26,7 @@ import java.time.LocalDate;
 import java.util.*;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.assertj.core.api.Assertions.tuple;
 
 @JdbcTest
@@ -34,15 +39,17 @@ class FilmorateApplicationTest {
     private JdbcTemplate jdbcTemplate;
     private UserDbStorage userStorage;
     private FilmDbStorage filmStorage;
+    private StatementRecorder statements;
 
     @BeforeEach
     void setUp() {
+        statements = new StatementRecorder(jdbcTemplate.getDataSource());
         UserRowMapper mapperU = new UserRowMapper();
-        userStorage = new UserDbStorage(jdbcTemplate, mapperU);
+        userStorage = new UserDbStorage(new JdbcTemplate(statements.getDataSource()), mapperU);
         FilmRowMapper mapperF = new FilmRowMapper();
         RatingRowMapper mapperR = new RatingRowMapper();
         GenreRowMapper mapperG = new GenreRowMapper();
-        filmStorage = new FilmDbStorage(jdbcTemplate, mapperF, mapperR, mapperG);
+        filmStorage = new FilmDbStorage(new JdbcTemplate(statements.getDataSource()), mapperF, mapperR, mapperG);
     }
 
 //Тесты публичных методов UserDbStorage
@@ -94,6 +101,94 @@ class FilmorateApplicationTest {
                 );
     }
 
+    @Test
+    public void testFindUsersPage() {
+        for (int i = 1; i <= 5; i++) {
+            User usr = new User();
+            usr.setLogin("TestUser" + i);
+            usr.setEmail("TestUser" + i + "@test.com");
+            userStorage.create(usr);
+        }
+        userStorage.addFieldToFriendship(3L, 4L, FriendshipStatus.UNCONFIRMED);
+
+        List<User> page = userStorage.getUsers(2L, 2);
+
+        assertThat(page)
+                .extracting(User::getId)
+                .containsExactly(3L, 4L);
+        assertThat(page.get(0).getFriends()).containsEntry(4L, FriendshipStatus.UNCONFIRMED);
+        assertThat(userStorage.getUsers(4L, 10))
+                .extracting(User::getId)
+                .containsExactly(5L);
+    }
+
+    @Test
+    public void testCreateUsersInBatch() {
+        List<User> users = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            User usr = new User();
+            usr.setLogin("TestUser" + i);
+            usr.setEmail("TestUser" + i + "@test.com");
+            users.add(usr);
+        }
+
+        userStorage.createAll(users);
+
+        assertThat(users).extracting(User::getId).containsExactly(1L, 2L, 3L);
+        assertThat(userStorage.getUsersByEmailsOrLogins(List.of("TestUser1@test.com", "new@test.com"),
+                List.of("TestUser3", "NewUser")))
+                .extracting(User::getId)
+                .containsExactlyInAnyOrder(1L, 3L);
+        assertThat(userStorage.getUsersByEmailsOrLogins(List.of(), List.of())).isEmpty();
+    }
+
+    @Test
+    public void testUsersByEmailsOrLoginsProbeIndexes() {
+        for (int i = 1; i <= 50; i++) {
+            User usr = new User();
+            usr.setLogin("TestUser" + i);
+            usr.setEmail("TestUser" + i + "@test.com");
+            userStorage.create(usr);
+        }
+        List<String> emails = List.of("TestUser1@test.com", "new@test.com");
+        List<String> logins = List.of("TestUser3", "NewUser");
+
+        statements.reset();
+        List<User> found = userStorage.getUsersByEmailsOrLogins(emails, logins);
+
+        assertThat(found).extracting(User::getId).containsExactlyInAnyOrder(1L, 3L);
+        assertThat(statements.getStatements()).hasSize(1);
+
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + statements.getStatements().get(0), String.class,
+                "TestUser1@test.com", "new@test.com", "TestUser3", "NewUser");
+        assertThat(plan).doesNotContainIgnoringCase("tableScan");
+    }
+
+    @Test
+    public void testUniquenessProbes() {
+        User usr = new User();
+        usr.setLogin("TestUser1");
+        usr.setEmail("TestUser1@test.com");
+        userStorage.create(usr);
+        Film film = new Film();
+        film.setName("Test film 1");
+        filmStorage.create(film);
+
+        assertThat(userStorage.existsByEmail("TestUser1@test.com")).isTrue();
+        assertThat(userStorage.existsByEmail("TestUser2@test.com")).isFalse();
+        assertThat(userStorage.existsByLogin("TestUser1")).isTrue();
+        assertThat(userStorage.existsByLogin("TestUser2")).isFalse();
+        assertThat(filmStorage.findIdByTitle("Test film 1", 0)).isEqualTo(1L);
+        assertThat(filmStorage.findIdByTitle("Test film 1", 1L)).isNull();
+
+        User duplicate = new User();
+        duplicate.setLogin("TestUser2");
+        duplicate.setEmail("TestUser1@test.com");
+        assertThatThrownBy(() -> userStorage.create(duplicate))
+                .isInstanceOf(ValidationException.class)
+                .hasMessageContaining("Email");
+    }
+
     @Test
     public void testUpdateUser() {
 
@@ -190,6 +285,103 @@ class FilmorateApplicationTest {
                 });
     }
 
+    @Test
+    public void testGetFriendsPage() {
+        for (int i = 1; i <= 4; i++) {
+            User usr = new User();
+            usr.setLogin("TestUser" + i);
+            usr.setEmail("TestUser" + i + "@test.com");
+            userStorage.create(usr);
+        }
+        userStorage.addFieldToFriendship(1L, 4L, FriendshipStatus.UNCONFIRMED);
+        userStorage.addFieldToFriendship(1L, 2L, FriendshipStatus.CONFIRMED);
+        userStorage.addFieldToFriendship(2L, 1L, FriendshipStatus.CONFIRMED);
+        userStorage.addFieldToFriendship(1L, 3L, FriendshipStatus.UNCONFIRMED);
+
+        List<Friend> friends = userStorage.getFriends(1L, 0, 10);
+
+        assertThat(friends)
+                .extracting(friend -> friend.getUser().getId(), Friend::getStatus)
+                .containsExactly(
+                        tuple(2L, FriendshipStatus.CONFIRMED),
+                        tuple(3L, FriendshipStatus.UNCONFIRMED),
+                        tuple(4L, FriendshipStatus.UNCONFIRMED));
+        assertThat(friends.get(0).getUser().getLogin()).isEqualTo("TestUser2");
+        assertThat(userStorage.getFriends(1L, 2L, 1))
+                .extracting(friend -> friend.getUser().getId())
+                .containsExactly(3L);
+        assertThat(userStorage.getFriends(4L, 0, 10)).isEmpty();
+    }
+
+    @Test
+    public void testMutualFriends() {
+        for (int i = 1; i <= 5; i++) {
+            User usr = new User();
+            usr.setLogin("TestUser" + i);
+            usr.setEmail("TestUser" + i + "@test.com");
+            userStorage.create(usr);
+        }
+        userStorage.addFieldToFriendship(1L, 3L, FriendshipStatus.UNCONFIRMED);
+        userStorage.addFieldToFriendship(1L, 4L, FriendshipStatus.UNCONFIRMED);
+        userStorage.addFieldToFriendship(1L, 5L, FriendshipStatus.UNCONFIRMED);
+        userStorage.addFieldToFriendship(2L, 5L, FriendshipStatus.UNCONFIRMED);
+        userStorage.addFieldToFriendship(2L, 3L, FriendshipStatus.UNCONFIRMED);
+
+        assertThat(userStorage.getMutualFriends(1L, 2L))
+                .extracting(User::getId)
+                .containsExactly(3L, 5L);
+        assertThat(userStorage.countMutualFriends(1L, 2L)).isEqualTo(2);
+        assertThat(userStorage.countMutualFriends(1L, 3L)).isZero();
+    }
+
+    @Test
+    public void testSuggestedFriends() {
+        for (int i = 1; i <= 6; i++) {
+            User usr = new User();
+            usr.setLogin("TestUser" + i);
+            usr.setEmail("TestUser" + i + "@test.com");
+            userStorage.create(usr);
+        }
+        userStorage.addFieldToFriendship(1L, 2L, FriendshipStatus.UNCONFIRMED);
+        userStorage.addFieldToFriendship(1L, 3L, FriendshipStatus.UNCONFIRMED);
+        userStorage.addFieldToFriendship(2L, 1L, FriendshipStatus.UNCONFIRMED);
+        userStorage.addFieldToFriendship(2L, 3L, FriendshipStatus.UNCONFIRMED);
+        userStorage.addFieldToFriendship(2L, 5L, FriendshipStatus.UNCONFIRMED);
+        userStorage.addFieldToFriendship(2L, 6L, FriendshipStatus.UNCONFIRMED);
+        userStorage.addFieldToFriendship(3L, 4L, FriendshipStatus.UNCONFIRMED);
+        userStorage.addFieldToFriendship(3L, 6L, FriendshipStatus.UNCONFIRMED);
+
+        assertThat(userStorage.getSuggestedFriends(1L, 100, 10))
+                .extracting(suggestion -> suggestion.getUser().getId(), Suggestion::getMutualFriends)
+                .containsExactly(tuple(6L, 2), tuple(4L, 1), tuple(5L, 1));
+        assertThat(userStorage.getSuggestedFriends(1L, 100, 1))
+                .extracting(suggestion -> suggestion.getUser().getId())
+                .containsExactly(6L);
+        assertThat(userStorage.getSuggestedFriends(1L, 1, 10))
+                .extracting(suggestion -> suggestion.getUser().getId())
+                .containsExactly(5L, 6L);
+    }
+
+    @Test
+    public void testStreamFriendshipsOfUsers() {
+        for (int i = 1; i <= 4; i++) {
+            User usr = new User();
+            usr.setLogin("TestUser" + i);
+            usr.setEmail("TestUser" + i + "@test.com");
+            userStorage.create(usr);
+        }
+        userStorage.addFieldToFriendship(1L, 2L, FriendshipStatus.CONFIRMED);
+        userStorage.addFieldToFriendship(2L, 1L, FriendshipStatus.CONFIRMED);
+        userStorage.addFieldToFriendship(2L, 3L, FriendshipStatus.UNCONFIRMED);
+        userStorage.addFieldToFriendship(4L, 1L, FriendshipStatus.UNCONFIRMED);
+
+        List<String> edges = new ArrayList<>();
+        userStorage.streamFriendships(List.of(2L, 3L, 4L),
+                (userId, friendId, status) -> edges.add(userId + "->" + friendId + ":" + status));
+
+        assertThat(edges).containsExactlyInAnyOrder("2->1:CONFIRMED", "2->3:UNCONFIRMED", "4->1:UNCONFIRMED");
+    }
+
     @Test
     public void testUserDeleteFriend() {
         User usr = new User();
@@ -290,6 +482,44 @@ class FilmorateApplicationTest {
                 );
     }
 
+    @Test
+    public void testGetFilmPage() {
+        for (int i = 1; i <= 5; i++) {
+            Film film = new Film();
+            film.setName("Test film " + i);
+            filmStorage.create(film);
+        }
+
+        assertThat(filmStorage.getFilms(0L, 3))
+                .extracting(Film::getId)
+                .containsExactly(1L, 2L, 3L);
+        assertThat(filmStorage.getFilms(3L, 3))
+                .extracting(Film::getId)
+                .containsExactly(4L, 5L);
+    }
+
+    @Test
+    public void testStreamFilms() {
+        Film film1 = new Film();
+        film1.setName("Test film 1");
+        film1.setGenres(Set.of(Genre.ACTION, Genre.DRAMA));
+        filmStorage.create(film1);
+
+        Film film2 = new Film();
+        film2.setName("Test film 2");
+        filmStorage.create(film2);
+
+        List<Film> films = new ArrayList<>();
+        filmStorage.streamFilms(films::add);
+
+        assertThat(films)
+                .extracting(Film::getId, Film::getGenres)
+                .containsExactly(
+                        tuple(1L, Set.of(Genre.ACTION, Genre.DRAMA)),
+                        tuple(2L, Set.of())
+                );
+    }
+
     @Test
     public void testUpdateFilm() {
         Film film1 = new Film();
@@ -331,6 +561,51 @@ class FilmorateApplicationTest {
                 );
     }
 
+    @Test
+    public void testCreateFilmsInBatch() {
+        List<Film> films = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            Film film = new Film();
+            film.setName("Test film " + i);
+            film.setRating(Rating.from(i));
+            film.setGenres(i == 3 ? Set.of() : Set.of(Genre.from(i), Genre.ACTION));
+            films.add(film);
+        }
+
+        filmStorage.createAll(films);
+
+        assertThat(films).extracting(Film::getId).containsExactly(1L, 2L, 3L);
+        assertThat(filmStorage.getFilmById(2L).getGenres()).containsExactlyInAnyOrder(Genre.DRAMA, Genre.ACTION);
+        assertThat(filmStorage.getFilmById(3L).getGenres()).isEmpty();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM film_genres", Integer.class)).isEqualTo(4);
+    }
+
+    @Test
+    public void testUpdateFilmGenreStatements() {
+        Film film = new Film();
+        film.setName("Test film 1");
+        film.setReleaseDate(LocalDate.of(2020, 2, 20));
+        film.setGenres(Set.of(Genre.COMEDY, Genre.DRAMA));
+        filmStorage.create(film);
+
+        statements.reset();
+        filmStorage.update(film);
+        assertThat(statements.count("film_genres")).isEqualTo(1);
+
+        film.setGenres(Set.of(Genre.DRAMA, Genre.ACTION, Genre.THRILLER));
+        statements.reset();
+        filmStorage.update(film);
+        assertThat(statements.count("film_genres")).isEqualTo(3);
+        assertThat(filmStorage.getFilmById(1L).getGenres())
+                .containsExactlyInAnyOrder(Genre.DRAMA, Genre.ACTION, Genre.THRILLER);
+
+        film.setGenres(null);
+        statements.reset();
+        filmStorage.update(film);
+        assertThat(statements.count("film_genres")).isZero();
+        assertThat(filmStorage.getFilmById(1L).getGenres()).hasSize(3);
+    }
+
     @Test
     public void testAddLike() {
         User usr = new User();
@@ -374,21 +649,74 @@ class FilmorateApplicationTest {
                 .filteredOn(film -> film.getId() == 1L)
                 .hasSize(1)
                 .first()
-                .satisfies(film -> {
-                    assertThat(film.getLikes())
-                            .hasSize(3)
-                            .containsExactly(1L, 2L, 3L);
-                });
+                .satisfies(film -> assertThat(film.getLikeCount()).isEqualTo(3));
 
         assertThat(films)
                 .filteredOn(film -> film.getId() == 2L)
                 .hasSize(1)
                 .first()
-                .satisfies(film -> {
-                    assertThat(film.getLikes())
-                            .hasSize(2)
-                            .containsExactly(1L, 2L);
-                });
+                .satisfies(film -> assertThat(film.getLikeCount()).isEqualTo(2));
+
+        assertThat(filmStorage.isLiked(2L, 2L)).isTrue();
+        assertThat(filmStorage.isLiked(2L, 3L)).isFalse();
+    }
+
+    @Test
+    public void testGetLikes() {
+        for (int i = 1; i <= 3; i++) {
+            User usr = new User();
+            usr.setLogin("TestUser" + i);
+            usr.setEmail("TestUser" + i + "@test.com");
+            userStorage.create(usr);
+        }
+        Film film = new Film();
+        film.setName("Test film 1");
+        filmStorage.create(film);
+
+        assertThat(filmStorage.getLikes(1L)).isEmpty();
+
+        filmStorage.setLikeToDb(1L, 3L);
+        filmStorage.setLikeToDb(1L, 1L);
+
+        LikeSet likes = filmStorage.getLikes(1L);
+        assertThat(likes).containsExactly(1L, 3L);
+        assertThat(likes.contains(2L)).isFalse();
+    }
+
+    @Test
+    public void testTopFilms() {
+        for (int i = 1; i <= 3; i++) {
+            User usr = new User();
+            usr.setLogin("TestUser" + i);
+            usr.setEmail("TestUser" + i + "@test.com");
+            userStorage.create(usr);
+
+            Film film = new Film();
+            film.setName("Test film " + i);
+            filmStorage.create(film);
+        }
+
+        filmStorage.setLikeToDb(3L, 1L);
+        filmStorage.setLikeToDb(3L, 2L);
+        filmStorage.setLikeToDb(2L, 1L);
+
+        assertThat(filmStorage.getTopFilms(10, null, null, null))
+                .extracting(Film::getId)
+                .containsExactly(3L, 2L, 1L);
+
+        filmStorage.setLikeToDb(1L, 3L);
+
+        assertThat(filmStorage.getTopFilms(2, null, null, null))
+                .extracting(Film::getId)
+                .containsExactly(3L, 1L);
+
+        assertThat(filmStorage.getLikeCounts())
+                .containsEntry(1L, 1L)
+                .containsEntry(2L, 1L)
+                .containsEntry(3L, 2L);
+        assertThat(filmStorage.getFilmsByIds(List.of(3L, 99L, 1L)))
+                .extracting(Film::getId)
+                .containsExactly(3L, 1L);
     }
 
     @Test
@@ -422,11 +750,7 @@ class FilmorateApplicationTest {
                 .filteredOn(film -> film.getId() == 1L)
                 .hasSize(1)
                 .first()
-                .satisfies(film -> {
-                    assertThat(film.getLikes())
-                            .hasSize(3)
-                            .containsExactly(1L, 2L, 3L);
-                });
+                .satisfies(film -> assertThat(film.getLikeCount()).isEqualTo(3));
 
         filmStorage.deleteLikeFromDb(1L, 3L);
         films = filmStorage.getFilms();
@@ -435,11 +759,226 @@ class FilmorateApplicationTest {
                 .filteredOn(film -> film.getId() == 1L)
                 .hasSize(1)
                 .first()
-                .satisfies(film -> {
-                    assertThat(film.getLikes())
-                            .hasSize(2)
-                            .containsExactly(1L, 2L);
+                .satisfies(film -> assertThat(film.getLikeCount()).isEqualTo(2));
+        assertThat(filmStorage.isLiked(1L, 2L)).isTrue();
+        assertThat(filmStorage.isLiked(1L, 3L)).isFalse();
+    }
+
+    @Test
+    public void testFilmHydrationQueryCount() {
+        User usr = new User();
+        usr.setLogin("TestUser1");
+        usr.setEmail("TestUser1@test.com");
+        userStorage.create(usr);
+
+        for (int i = 1; i <= 5; i++) {
+            Film film = new Film();
+            film.setName("Test film " + i);
+            film.setGenres(Set.of(Genre.COMEDY, Genre.from(i)));
+            film.setRating(Rating.from(i));
+            filmStorage.create(film);
+            filmStorage.setLikeToDb(i, 1L);
+        }
+
+        statements.reset();
+        Collection<Film> films = filmStorage.getFilms();
+        assertThat(statements.getStatements()).hasSize(1);
+
+        assertThat(films)
+                .hasSize(5)
+                .allSatisfy(film -> {
+                    assertThat(film.getGenres()).contains(Genre.COMEDY);
+                    assertThat(film.getRating()).isNotNull();
+                    assertThat(film.getLikeCount()).isEqualTo(1);
                 });
+
+        statements.reset();
+        Film film = filmStorage.getFilmById(3L);
+        assertThat(statements.getStatements()).hasSize(1);
+
+        assertThat(film.getGenres()).isEqualTo(Set.of(Genre.COMEDY, Genre.ANIMATION));
+        assertThat(film.getRating()).isEqualTo(Rating.PG13);
+    }
+
+    @Test
+    public void testStatementCountingDataSource() {
+        Film film = new Film();
+        film.setName("Test film 1");
+        film.setGenres(Set.of(Genre.COMEDY));
+        filmStorage.create(film);
+        FilmDbStorage countedStorage = new FilmDbStorage(
+                new JdbcTemplate(new StatementCountingDataSource(
+                        new TransactionAwareDataSourceProxy(jdbcTemplate.getDataSource()))),
+                new FilmRowMapper(), new RatingRowMapper(), new GenreRowMapper());
+
+        StatementCountingDataSource.reset();
+        countedStorage.getFilms();
+        countedStorage.getFilmById(1L);
+
+        assertThat(StatementCountingDataSource.count()).isEqualTo(2);
+    }
+
+    @Test
+    public void testFilmsByGenreMask() {
+        List<Set<Genre>> genres = List.of(
+                Set.of(Genre.COMEDY),
+                Set.of(Genre.COMEDY, Genre.DRAMA),
+                Set.of(Genre.DRAMA, Genre.ACTION),
+                Set.of());
+        for (int i = 0; i < genres.size(); i++) {
+            Film film = new Film();
+            film.setName("Test film " + (i + 1));
+            film.setGenres(genres.get(i));
+            filmStorage.create(film);
+        }
+
+        assertThat(filmStorage.getFilmsByGenres(Set.of(Genre.COMEDY, Genre.ACTION), false, 0, 10))
+                .extracting(Film::getId)
+                .containsExactly(1L, 2L, 3L);
+        assertThat(filmStorage.getFilmsByGenres(Set.of(Genre.COMEDY, Genre.DRAMA), true, 0, 10))
+                .extracting(Film::getId)
+                .containsExactly(2L);
+        assertThat(filmStorage.getFilmsByGenres(Set.of(Genre.DRAMA), false, 2L, 10))
+                .extracting(Film::getId)
+                .containsExactly(3L);
+        assertThat(filmStorage.getFilmById(4L).getGenres()).isEmpty();
+    }
+
+    @Test
+    public void testTopFilmsFiltered() {
+        User usr = new User();
+        usr.setLogin("TestUser1");
+        usr.setEmail("TestUser1@test.com");
+        userStorage.create(usr);
+
+        Film film1 = new Film();
+        film1.setName("Test film 1");
+        film1.setGenres(Set.of(Genre.COMEDY));
+        film1.setRating(Rating.G);
+        film1.setReleaseDate(LocalDate.of(2000, 5, 1));
+        filmStorage.create(film1);
+
+        Film film2 = new Film();
+        film2.setName("Test film 2");
+        film2.setGenres(Set.of(Genre.COMEDY, Genre.DRAMA));
+        film2.setRating(Rating.R);
+        film2.setReleaseDate(LocalDate.of(2001, 5, 1));
+        filmStorage.create(film2);
+
+        filmStorage.setLikeToDb(2L, 1L);
+
+        assertThat(filmStorage.getTopFilms(10, Genre.COMEDY, null, null))
+                .extracting(Film::getId)
+                .containsExactly(2L, 1L);
+        assertThat(filmStorage.getTopFilms(10, Genre.COMEDY, Rating.G, null))
+                .extracting(Film::getId)
+                .containsExactly(1L);
+        assertThat(filmStorage.getTopFilms(10, null, null, 2001))
+                .extracting(Film::getId)
+                .containsExactly(2L);
+        assertThat(filmStorage.getTopFilms(10, Genre.ACTION, null, null)).isEmpty();
+    }
+
+    @Test
+    public void testLikeCounter() {
+        for (int i = 1; i <= 2; i++) {
+            User usr = new User();
+            usr.setLogin("TestUser" + i);
+            usr.setEmail("TestUser" + i + "@test.com");
+            userStorage.create(usr);
+        }
+        Film film = new Film();
+        film.setName("Test film 1");
+        filmStorage.create(film);
+
+        filmStorage.setLikeToDb(1L, 1L);
+        filmStorage.setLikeToDb(1L, 2L);
+        filmStorage.deleteLikeFromDb(1L, 1L);
+
+        assertThat(filmStorage.getFilmById(1L).getLikeCount()).isEqualTo(1L);
+
+        jdbcTemplate.update("UPDATE films SET like_count = 42 WHERE id = 1");
+
+        assertThat(filmStorage.reconcileLikeCounts(1)).isEqualTo(1);
+        assertThat(filmStorage.getFilmById(1L).getLikeCount()).isEqualTo(1L);
+        assertThat(filmStorage.reconcileLikeCounts(1)).isZero();
+    }
+
+    @Test
+    public void testLikedFilmIds() {
+        User usr = new User();
+        usr.setLogin("TestUser1");
+        usr.setEmail("TestUser1@test.com");
+        userStorage.create(usr);
+        for (int i = 1; i <= 3; i++) {
+            Film film = new Film();
+            film.setName("Test film " + i);
+            filmStorage.create(film);
+        }
+
+        filmStorage.setLikeToDb(3L, 1L);
+        filmStorage.setLikeToDb(1L, 1L);
+
+        assertThat(filmStorage.isLiked(1L, 1L)).isTrue();
+        assertThat(filmStorage.isLiked(2L, 1L)).isFalse();
+        assertThat(filmStorage.getLikedFilmIds(1L, 0, 10)).containsExactly(1L, 3L);
+        assertThat(filmStorage.getLikedFilmIds(1L, 1L, 10)).containsExactly(3L);
+        assertThat(filmStorage.getLikedFilmIds(1L, 0, 1)).containsExactly(1L);
+    }
+
+    @Test
+    public void testLikeConstraintErrors() {
+        User usr = new User();
+        usr.setLogin("TestUser1");
+        usr.setEmail("TestUser1@test.com");
+        userStorage.create(usr);
+        for (int i = 1; i <= 2; i++) {
+            Film film = new Film();
+            film.setName("Test film " + i);
+            filmStorage.create(film);
+        }
+
+        filmStorage.setLikeToDb(1L, 1L);
+
+        assertThatThrownBy(() -> filmStorage.setLikeToDb(1L, 1L)).isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> filmStorage.setLikeToDb(99L, 1L)).isInstanceOf(NotFoundException.class);
+        assertThatThrownBy(() -> filmStorage.setLikeToDb(1L, 99L)).isInstanceOf(NotFoundException.class);
+        assertThatThrownBy(() -> filmStorage.deleteLikeFromDb(2L, 1L)).isInstanceOf(ValidationException.class);
+        assertThat(filmStorage.getFilmById(1L).getLikeCount()).isEqualTo(1L);
+
+        filmStorage.deleteLikeFromDb(1L, 1L);
+
+        assertThatThrownBy(() -> filmStorage.deleteLikeFromDb(1L, 1L)).isInstanceOf(NotFoundException.class);
+        assertThat(filmStorage.getFilmById(1L).getLikeCount()).isZero();
+    }
+
+    @Test
+    public void testLikeBatch() {
+        for (int i = 1; i <= 2; i++) {
+            User usr = new User();
+            usr.setLogin("TestUser" + i);
+            usr.setEmail("TestUser" + i + "@test.com");
+            userStorage.create(usr);
+            Film film = new Film();
+            film.setName("Test film " + i);
+            filmStorage.create(film);
+        }
+        filmStorage.setLikeToDb(2L, 2L);
+
+        List<LikeOutcome> added = filmStorage.setLikesToDb(List.of(
+                new Like(1L, 1L), new Like(1L, 2L), new Like(1L, 1L),
+                new Like(2L, 2L), new Like(99L, 1L), new Like(1L, 99L)));
+
+        assertThat(added).containsExactly(LikeOutcome.ADDED, LikeOutcome.ADDED, LikeOutcome.ALREADY_LIKED,
+                LikeOutcome.ALREADY_LIKED, LikeOutcome.FILM_NOT_FOUND, LikeOutcome.USER_NOT_FOUND);
+        assertThat(filmStorage.getFilmById(1L).getLikeCount()).isEqualTo(2L);
+
+        List<LikeOutcome> removed = filmStorage.deleteLikesFromDb(List.of(
+                new Like(1L, 1L), new Like(1L, 1L), new Like(2L, 1L)));
+
+        assertThat(removed).containsExactly(LikeOutcome.REMOVED, LikeOutcome.NOT_LIKED, LikeOutcome.NOT_LIKED);
+        assertThat(filmStorage.getFilmById(1L).getLikeCount()).isEqualTo(1L);
+        assertThat(filmStorage.reconcileLikeCounts(100)).isZero();
     }
 
     @Test
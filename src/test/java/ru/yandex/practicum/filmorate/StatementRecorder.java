@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate;
+
+import org.springframework.jdbc.datasource.TransactionAwareDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Источник данных для тестов: работает в текущей тестовой транзакции и запоминает SQL
+ * каждого выполненного драйвером запроса. Пакетный запрос записывается один раз.
+ */
+class StatementRecorder {
+    private final List<String> statements = new CopyOnWriteArrayList<>();
+    private final DataSource dataSource;
+
+    StatementRecorder(DataSource target) {
+        DataSource transactional = new TransactionAwareDataSourceProxy(target);
+        dataSource = proxy(DataSource.class, transactional, (method, args, result) ->
+                result instanceof Connection connection ? recordingConnection(connection) : result);
+    }
+
+    DataSource getDataSource() {
+        return dataSource;
+    }
+
+    List<String> getStatements() {
+        return List.copyOf(statements);
+    }
+
+    long count(String table) {
+        return statements.stream()
+                .filter(sql -> sql.toLowerCase().contains(table.toLowerCase()))
+                .count();
+    }
+
+    void reset() {
+        statements.clear();
+    }
+
+    private Connection recordingConnection(Connection connection) {
+        return proxy(Connection.class, connection, (method, args, result) -> {
+            if (result instanceof PreparedStatement statement && method.getName().equals("prepareStatement")) {
+                String sql = (String) args[0];
+                return proxy(PreparedStatement.class, statement, (psMethod, psArgs, psResult) -> {
+                    if (psMethod.getName().startsWith("execute")) {
+                        statements.add(sql);
+                    }
+                    return psResult;
+                });
+            }
+            if (result instanceof Statement statement && method.getName().equals("createStatement")) {
+                return proxy(Statement.class, statement, (stMethod, stArgs, stResult) -> {
+                    if (stMethod.getName().startsWith("execute") && stArgs != null && stArgs[0] instanceof String sql) {
+                        statements.add(sql);
+                    }
+                    return stResult;
+                });
+            }
+            return result;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, AfterCall afterCall) {
+        return (T) Proxy.newProxyInstance(StatementRecorder.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    Object result;
+                    try {
+                        result = method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    return afterCall.apply(method, args, result);
+                });
+    }
+
+    @FunctionalInterface
+    private interface AfterCall {
+        Object apply(Method method, Object[] args, Object result) throws Exception;
+    }
+}
@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сравнение памяти на один лайк: HashSet&lt;Long&gt; против LikeSet.
+ * Запуск: mvn test -P benchmark
+ */
+@Slf4j
+@Tag("benchmark")
+class LikeSetBenchmarkTest {
+    private static final int LIKES = 1_000_000;
+
+    @Test
+    public void testMemoryPerLike() {
+        long hashSetBytes = measure(() -> {
+            Set<Long> likes = new HashSet<>();
+            for (long id = 1; id <= LIKES; id++) {
+                likes.add(id * 3);
+            }
+            return likes;
+        });
+        long likeSetBytes = measure(() -> {
+            LikeSet.Builder builder = new LikeSet.Builder();
+            for (long id = 1; id <= LIKES; id++) {
+                builder.add(id * 3);
+            }
+            return builder.build();
+        });
+
+        log.info("HashSet<Long>: {} байт на лайк, LikeSet: {} байт на лайк",
+                hashSetBytes / LIKES, likeSetBytes / LIKES);
+        assertThat(hashSetBytes).isGreaterThanOrEqualTo(likeSetBytes * 10);
+    }
+
+    private static long measure(Supplier<Object> factory) {
+        long before = usedMemory();
+        Object value = factory.get();
+        long after = usedMemory();
+
+        assertThat(value).isNotNull();
+        return after - before;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
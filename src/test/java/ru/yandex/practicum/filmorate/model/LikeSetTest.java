@@ -0,0 +1,43 @@
+package ru.yandex.practicum.filmorate.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LikeSetTest {
+
+    @Test
+    public void testMembershipAndUpdates() {
+        LikeSet likes = LikeSet.of(5L, 1L, 3L, 3L);
+
+        assertThat(likes).containsExactly(1L, 3L, 5L);
+        assertThat(likes.contains(3L)).isTrue();
+        assertThat(likes.contains(4L)).isFalse();
+
+        assertThat(likes.with(4L)).containsExactly(1L, 3L, 4L, 5L);
+        assertThat(likes.without(3L)).containsExactly(1L, 5L);
+        assertThat(likes.with(3L)).isSameAs(likes);
+        assertThat(likes).containsExactly(1L, 3L, 5L);
+    }
+
+    @Test
+    public void testIntersection() {
+        LikeSet first = LikeSet.of(1L, 2L, 3L, 7L);
+        LikeSet second = LikeSet.of(2L, 3L, 4L, 7L, 8L);
+
+        assertThat(first.intersect(second)).containsExactly(2L, 3L, 7L);
+        assertThat(first.intersectionSize(second)).isEqualTo(3);
+        assertThat(first.intersect(LikeSet.empty())).isEmpty();
+    }
+
+    @Test
+    public void testWideIds() {
+        long wideId = Integer.MAX_VALUE + 10L;
+        LikeSet likes = LikeSet.of(1L).with(wideId);
+
+        assertThat(likes).containsExactly(1L, wideId);
+        assertThat(likes.contains(wideId)).isTrue();
+        assertThat(LikeSet.of(1L).contains(wideId)).isFalse();
+        assertThat(likes.without(wideId)).isEqualTo(LikeSet.of(1L));
+    }
+}
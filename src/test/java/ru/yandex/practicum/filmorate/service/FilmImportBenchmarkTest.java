@@ -0,0 +1,78 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import ru.yandex.practicum.filmorate.dto.ImportReportDTO;
+import ru.yandex.practicum.filmorate.storage.dao.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.dao.UserDbStorage;
+import ru.yandex.practicum.filmorate.storage.mapper.FilmRowMapper;
+import ru.yandex.practicum.filmorate.storage.mapper.GenreRowMapper;
+import ru.yandex.practicum.filmorate.storage.mapper.RatingRowMapper;
+import ru.yandex.practicum.filmorate.storage.mapper.UserRowMapper;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Скорость импорта фильмов из NDJSON в файловую H2.
+ * Запуск: mvn test -P benchmark
+ */
+@Slf4j
+@Tag("benchmark")
+@JdbcTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:file:./target/benchmark/filmorate")
+@Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD, scripts = {"classpath:schema.sql", "classpath:data.sql"})
+class FilmImportBenchmarkTest {
+    private static final int FILMS = 200_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    private FilmService filmService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        FilmDbStorage filmStorage =
+                new FilmDbStorage(jdbcTemplate, new FilmRowMapper(), new RatingRowMapper(), new GenreRowMapper());
+        UserDbStorage userStorage = new UserDbStorage(jdbcTemplate, new UserRowMapper());
+        NdjsonImporter importer = new NdjsonImporter(JsonMapper.builder().findAndAddModules().build());
+        filmService = new FilmService(filmStorage, userStorage, new PopularityLeaderboard(filmStorage),
+                mock(ObjectProvider.class), importer);
+    }
+
+    @Test
+    public void testImportThroughput() {
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 1; i <= FILMS; i++) {
+            ndjson.append("{\"name\":\"Film ").append(i)
+                    .append("\",\"description\":\"Imported film\",\"releaseDate\":\"2000-01-01\",\"duration\":90,")
+                    .append("\"mpa\":{\"id\":").append(i % 5 + 1).append("},")
+                    .append("\"genres\":[{\"id\":").append(i % 6 + 1).append("}]}\n");
+        }
+        byte[] body = ndjson.toString().getBytes(StandardCharsets.UTF_8);
+
+        long start = System.nanoTime();
+        ImportReportDTO report = filmService.importFilms(new ByteArrayInputStream(body));
+        long nanos = System.nanoTime() - start;
+
+        double rate = FILMS * 1e9 / nanos;
+        log.info("Импорт фильмов: {} фильмов/с", Math.round(rate));
+        assertThat(report.getImported()).isEqualTo(FILMS);
+        assertThat(report.getFailed()).isZero();
+        assertThat(rate).isGreaterThanOrEqualTo(20_000);
+    }
+}
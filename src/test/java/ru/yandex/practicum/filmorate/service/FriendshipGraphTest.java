@@ -0,0 +1,82 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.FriendshipStatus;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class FriendshipGraphTest {
+    private FriendshipGraph graph;
+
+    @BeforeEach
+    void setUp() {
+        UserStorage userStorage = mock(UserStorage.class);
+        doAnswer(call -> {
+            UserStorage.FriendshipConsumer consumer = call.getArgument(0);
+            consumer.accept(1, 2, FriendshipStatus.CONFIRMED);
+            consumer.accept(1, 3, FriendshipStatus.UNCONFIRMED);
+            consumer.accept(1, 4, FriendshipStatus.UNCONFIRMED);
+            consumer.accept(2, 1, FriendshipStatus.CONFIRMED);
+            consumer.accept(2, 3, FriendshipStatus.UNCONFIRMED);
+            consumer.accept(2, 4, FriendshipStatus.UNCONFIRMED);
+            return null;
+        }).when(userStorage).streamFriendships(any());
+
+        graph = new FriendshipGraph(userStorage, 2);
+        graph.load();
+    }
+
+    @Test
+    public void testLoadedRows() {
+        assertThat(graph.isReady()).isTrue();
+        assertThat(graph.degree(1)).isEqualTo(3);
+        assertThat(graph.degree(3)).isZero();
+        assertThat(graph.friends(1, 0, 10)).containsExactly(2, 3, 4);
+        assertThat(graph.friends(1, 2, 1)).containsExactly(3);
+        assertThat(graph.status(1, 2)).isEqualTo(FriendshipStatus.CONFIRMED);
+        assertThat(graph.status(1, 3)).isEqualTo(FriendshipStatus.UNCONFIRMED);
+        assertThat(graph.status(1, 5)).isNull();
+    }
+
+    @Test
+    public void testMutualFriends() {
+        assertThat(graph.mutual(1, 2)).containsExactly(3, 4);
+        assertThat(graph.countMutual(1, 2)).isEqualTo(2);
+        assertThat(graph.mutual(1, 3)).isEmpty();
+    }
+
+    @Test
+    public void testSuggestions() {
+        graph.put(3, 5, FriendshipStatus.UNCONFIRMED);
+        graph.put(4, 5, FriendshipStatus.UNCONFIRMED);
+        graph.put(4, 6, FriendshipStatus.UNCONFIRMED);
+
+        assertThat(graph.suggestions(1, 100, 10)).containsExactly(entry(5L, 2), entry(6L, 1));
+        assertThat(graph.suggestions(1, 100, 1)).containsExactly(entry(5L, 2));
+        assertThat(graph.suggestions(1, 2, 10)).containsExactly(entry(5L, 1));
+        assertThat(graph.suggestions(3, 100, 10)).isEmpty();
+    }
+
+    @Test
+    public void testUpdatesSurviveCompaction() {
+        graph.put(3, 1, FriendshipStatus.CONFIRMED);
+        graph.put(1, 3, FriendshipStatus.CONFIRMED);
+        assertThat(graph.status(1, 3)).isEqualTo(FriendshipStatus.CONFIRMED);
+        assertThat(graph.friends(3, 0, 10)).containsExactly(1);
+
+        graph.remove(1, 2, FriendshipStatus.CONFIRMED);
+        assertThat(graph.friends(1, 0, 10)).containsExactly(3, 4);
+        assertThat(graph.status(2, 1)).isEqualTo(FriendshipStatus.UNCONFIRMED);
+
+        graph.put(5, 1, FriendshipStatus.UNCONFIRMED);
+        assertThat(graph.friends(5, 0, 10)).containsExactly(1);
+        assertThat(graph.mutual(1, 2)).containsExactly(3, 4);
+        assertThat(graph.degree(2)).isEqualTo(3);
+    }
+}
@@ -0,0 +1,92 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import ru.yandex.practicum.filmorate.model.FriendshipStatus;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class FriendshipPathFinderTest {
+    // Подтверждённая дружба: 1-2-3-4-5 и обход 1-6-7-5, плюс односторонняя заявка 1->5
+    private static final long[][] EDGES = {
+            {1, 2}, {2, 3}, {3, 4}, {4, 5}, {1, 6}, {6, 7}, {7, 5}
+    };
+    private UserStorage userStorage;
+
+    @BeforeEach
+    void setUp() {
+        userStorage = mock(UserStorage.class);
+        doAnswer(call -> {
+            streamEdges(null, call.getArgument(0));
+            return null;
+        }).when(userStorage).streamFriendships(any(UserStorage.FriendshipConsumer.class));
+        doAnswer(call -> {
+            streamEdges(call.getArgument(0), call.getArgument(1));
+            return null;
+        }).when(userStorage).streamFriendships(anyList(), any(UserStorage.FriendshipConsumer.class));
+    }
+
+    @Test
+    public void testPathThroughStorage() {
+        FriendshipPathFinder finder = new FriendshipPathFinder(userStorage, mock(ObjectProvider.class), 6, 1000);
+
+        assertThat(finder.findPath(1, 5)).containsExactly(1L, 6L, 7L, 5L);
+        assertThat(finder.findPath(4, 2)).containsExactly(4L, 3L, 2L);
+        assertThat(finder.findPath(3, 3)).containsExactly(3L);
+        assertThat(finder.findPath(1, 8)).isEmpty();
+        verify(userStorage, never()).streamFriendships(any(UserStorage.FriendshipConsumer.class));
+    }
+
+    @Test
+    public void testPathThroughGraph() {
+        FriendshipGraph graph = new FriendshipGraph(userStorage, 100);
+        graph.load();
+        ObjectProvider<FriendshipGraph> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(graph);
+        FriendshipPathFinder finder = new FriendshipPathFinder(userStorage, provider, 6, 1000);
+
+        assertThat(finder.findPath(1, 5)).containsExactly(1L, 6L, 7L, 5L);
+        assertThat(finder.findPath(2, 7)).containsExactly(2L, 1L, 6L, 7L);
+        verify(userStorage, never()).streamFriendships(anyList(), any(UserStorage.FriendshipConsumer.class));
+    }
+
+    @Test
+    public void testLimits() {
+        assertThat(new FriendshipPathFinder(userStorage, mock(ObjectProvider.class), 2, 1000).findPath(1, 4))
+                .isEmpty();
+        assertThat(new FriendshipPathFinder(userStorage, mock(ObjectProvider.class), 3, 1000).findPath(1, 4))
+                .containsExactly(1L, 2L, 3L, 4L);
+        assertThat(new FriendshipPathFinder(userStorage, mock(ObjectProvider.class), 6, 2).findPath(1, 5))
+                .isEmpty();
+    }
+
+    private static void streamEdges(List<Long> userIds, UserStorage.FriendshipConsumer consumer) {
+        for (long userId = 1; userId <= 7; userId++) {
+            if (userIds != null && !userIds.contains(userId)) {
+                continue;
+            }
+            Map<Long, FriendshipStatus> friends = new TreeMap<>();
+            for (long[] edge : EDGES) {
+                if (edge[0] == userId) {
+                    friends.put(edge[1], FriendshipStatus.CONFIRMED);
+                } else if (edge[1] == userId) {
+                    friends.put(edge[0], FriendshipStatus.CONFIRMED);
+                }
+            }
+            if (userId == 1) {
+                friends.put(5L, FriendshipStatus.UNCONFIRMED);
+            }
+            long id = userId;
+            friends.forEach((friendId, status) -> consumer.accept(id, friendId, status));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.LikeOutcome;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class LikeWriteBufferTest {
+    private FilmStorage filmStorage;
+    private PopularityLeaderboard leaderboard;
+    private LikeWriteBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        filmStorage = mock(FilmStorage.class);
+        leaderboard = spy(new PopularityLeaderboard(filmStorage));
+        when(filmStorage.setLikesToDb(anyList()))
+                .thenAnswer(call -> Collections.nCopies(call.<List<Like>>getArgument(0).size(), LikeOutcome.ADDED));
+        when(filmStorage.deleteLikesFromDb(anyList()))
+                .thenAnswer(call -> Collections.nCopies(call.<List<Like>>getArgument(0).size(), LikeOutcome.REMOVED));
+        buffer = new LikeWriteBuffer(filmStorage, leaderboard, 2, 60_000);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        buffer.shutdown();
+    }
+
+    @Test
+    public void testLikeAndUnlikeCancel() {
+        assertThat(buffer.submit(1L, 1L, true)).isTrue();
+        assertThat(buffer.pendingState(1L, 1L)).isTrue();
+        assertThat(buffer.pendingDelta(1L)).isEqualTo(1L);
+
+        assertThat(buffer.submit(1L, 1L, false)).isFalse();
+        assertThat(buffer.pendingState(1L, 1L)).isNull();
+        assertThat(buffer.pendingDelta(1L)).isZero();
+
+        buffer.flush();
+        verify(filmStorage, never()).setLikesToDb(anyList());
+    }
+
+    @Test
+    public void testFlushWritesBatchAndClearsDelta() {
+        buffer.submit(1L, 1L, true);
+        buffer.submit(1L, 2L, false);
+
+        buffer.flush();
+
+        verify(filmStorage).setLikesToDb(List.of(new Like(1L, 1L)));
+        verify(filmStorage).deleteLikesFromDb(List.of(new Like(1L, 2L)));
+        verify(leaderboard).adjust(1L, 1);
+        verify(leaderboard).adjust(1L, -1);
+        assertThat(buffer.size()).isZero();
+        assertThat(buffer.pendingDelta(1L)).isZero();
+    }
+
+    @Test
+    public void testFullBufferFlushesInCallerThread() {
+        buffer.submit(1L, 1L, true);
+        buffer.submit(2L, 1L, true);
+        buffer.submit(3L, 1L, true);
+
+        verify(filmStorage).setLikesToDb(List.of(new Like(1L, 1L), new Like(2L, 1L)));
+        assertThat(buffer.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testFailedFlushKeepsEvents() {
+        when(filmStorage.setLikesToDb(anyList())).thenThrow(new IllegalStateException("БД недоступна"));
+        buffer.submit(1L, 1L, true);
+
+        try {
+            buffer.flush();
+        } catch (IllegalStateException ignored) {
+            // события должны остаться в буфере
+        }
+
+        assertThat(buffer.pendingState(1L, 1L)).isTrue();
+        assertThat(buffer.pendingDelta(1L)).isEqualTo(1L);
+
+        doReturn(List.of(LikeOutcome.ADDED)).when(filmStorage).setLikesToDb(anyList());
+        buffer.flush();
+        assertThat(buffer.size()).isZero();
+    }
+}
@@ -0,0 +1,42 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.dto.ImportErrorDTO;
+import ru.yandex.practicum.filmorate.dto.ImportReportDTO;
+import ru.yandex.practicum.filmorate.dto.request.FilmCreateRequest;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NdjsonImporterTest {
+    private final NdjsonImporter importer = new NdjsonImporter(JsonMapper.builder().findAndAddModules().build());
+
+    @Test
+    public void testChunksAndLineErrors() {
+        String ndjson = """
+                {"name":"Film 1"}
+                {"name":"Film 2"
+
+                {"name":"Film 3","releaseDate":"2000-01-01"}
+                {"name":"Film 4"}
+                """;
+        List<List<Long>> chunks = new ArrayList<>();
+
+        ImportReportDTO report = importer.importLines(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)),
+                FilmCreateRequest.class, 2, (chunk, result) -> {
+                    chunks.add(new ArrayList<>(chunk.keySet()));
+                    result.addImported(chunk.size());
+                });
+
+        assertThat(chunks).containsExactly(List.of(1L, 4L), List.of(5L));
+        assertThat(report.getImported()).isEqualTo(3);
+        assertThat(report.getFailed()).isEqualTo(1);
+        assertThat(report.getErrors()).extracting(ImportErrorDTO::getLine).containsExactly(2L);
+    }
+}
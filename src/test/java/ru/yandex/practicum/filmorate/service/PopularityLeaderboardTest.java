@@ -0,0 +1,125 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class PopularityLeaderboardTest {
+    private FilmStorage filmStorage;
+    private PopularityLeaderboard leaderboard;
+
+    @BeforeEach
+    void setUp() {
+        filmStorage = mock(FilmStorage.class);
+        doAnswer(call -> {
+            Consumer<Film> consumer = call.getArgument(0);
+            consumer.accept(film(1L, 5));
+            consumer.accept(film(2L, 3));
+            return null;
+        }).when(filmStorage).streamFilms(any());
+        leaderboard = new PopularityLeaderboard(filmStorage);
+        leaderboard.load();
+    }
+
+    @Test
+    public void testVerifyKeepsLikesAfterSnapshot() {
+        leaderboard.adjust(1L, 1);
+        when(filmStorage.getLikeCounts()).thenReturn(Map.of(1L, 5L, 2L, 3L));
+        when(filmStorage.getLikeCount(1L)).thenReturn(6L);
+
+        assertThat(leaderboard.verify()).isZero();
+        assertThat(leaderboard.top(1)).containsExactly(1L);
+    }
+
+    @Test
+    public void testVerifyDuringLikeWriteDoesNotCountItTwice() {
+        when(filmStorage.getLikeCounts()).thenReturn(Map.of(1L, 6L, 2L, 3L));
+        when(filmStorage.getLikeCount(1L)).thenReturn(6L);
+
+        leaderboard.write(1L, () -> {
+            // Лайк уже записан в БД, но adjust ещё не вызван
+            assertThat(leaderboard.verify()).isZero();
+            leaderboard.adjust(1L, 1);
+        });
+
+        assertThat(leaderboard.verify()).isZero();
+    }
+
+    @Test
+    public void testVerifySkipsFilmAdjustedWhileReadingCount() {
+        when(filmStorage.getLikeCounts()).thenReturn(Map.of(1L, 4L, 2L, 3L));
+        when(filmStorage.getLikeCount(1L)).thenAnswer(call -> {
+            // Сверка прочитала счётчик до записи лайка, а лайк успел записаться и попасть в рейтинг
+            leaderboard.write(1L, () -> leaderboard.adjust(1L, 1));
+            return 5L;
+        });
+
+        assertThat(leaderboard.verify()).isZero();
+
+        when(filmStorage.getLikeCount(1L)).thenReturn(6L);
+        when(filmStorage.getLikeCounts()).thenReturn(Map.of(1L, 6L, 2L, 3L));
+        assertThat(leaderboard.verify()).isZero();
+    }
+
+    @Test
+    public void testVerifyRepairsDrift() {
+        when(filmStorage.getLikeCounts()).thenReturn(Map.of(1L, 5L, 2L, 7L));
+        when(filmStorage.getLikeCount(2L)).thenReturn(7L);
+
+        assertThat(leaderboard.verify()).isEqualTo(1);
+        assertThat(leaderboard.top(2)).containsExactly(2L, 1L);
+    }
+
+    @Test
+    public void testVerifyEvictsOnlyDeletedFilms() {
+        leaderboard.index(film(3L, 0));
+        when(filmStorage.getLikeCounts()).thenReturn(Map.of(1L, 5L));
+        when(filmStorage.getLikeCount(2L)).thenReturn(null);
+        when(filmStorage.getLikeCount(3L)).thenReturn(0L);
+
+        assertThat(leaderboard.verify()).isEqualTo(1);
+        assertThat(leaderboard.top(10)).containsExactly(1L, 3L);
+    }
+
+    @Test
+    public void testTopFilteredBySeveralFacets() {
+        leaderboard.index(film(3L, 0, Set.of(Genre.COMEDY), Rating.G, 2001));
+        leaderboard.index(film(4L, 0, Set.of(Genre.COMEDY), Rating.PG, 2001));
+        leaderboard.index(film(5L, 0, Set.of(Genre.DRAMA), Rating.G, 2001));
+        leaderboard.index(film(6L, 0, Set.of(Genre.COMEDY), Rating.G, 2002));
+        leaderboard.adjust(6L, 2);
+        leaderboard.adjust(3L, 1);
+
+        assertThat(leaderboard.top(10, Genre.COMEDY, Rating.G, 2001)).containsExactly(3L);
+        assertThat(leaderboard.top(10, Genre.COMEDY, Rating.G, null)).containsExactly(6L, 3L);
+        assertThat(leaderboard.top(10, Genre.COMEDY, null, 2001)).containsExactly(3L, 4L);
+        assertThat(leaderboard.top(10, null, null, 1999)).isEmpty();
+    }
+
+    private static Film film(long id, long likes, Set<Genre> genres, Rating rating, int year) {
+        Film film = film(id, likes);
+        film.setGenres(genres);
+        film.setRating(rating);
+        film.setReleaseDate(LocalDate.of(year, 1, 1));
+        return film;
+    }
+
+    private static Film film(long id, long likes) {
+        Film film = new Film();
+        film.setId(id);
+        film.setLikeCount(likes);
+        return film;
+    }
+}
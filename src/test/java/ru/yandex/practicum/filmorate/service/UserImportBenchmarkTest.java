@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import ru.yandex.practicum.filmorate.dto.ImportReportDTO;
+import ru.yandex.practicum.filmorate.storage.dao.UserDbStorage;
+import ru.yandex.practicum.filmorate.storage.mapper.UserRowMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Импорт миллиона пользователей из NDJSON в файловую H2. Тело запроса генерируется
+ * построчно, чтобы в памяти не было всего файла.
+ * Запуск: mvn test -P benchmark
+ */
+@Slf4j
+@Tag("benchmark")
+@JdbcTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:file:./target/benchmark/filmorate")
+@Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD, scripts = {"classpath:schema.sql", "classpath:data.sql"})
+class UserImportBenchmarkTest {
+    private static final int USERS = 1_000_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    private UserService userService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        UserDbStorage userStorage = new UserDbStorage(jdbcTemplate, new UserRowMapper());
+        userService = new UserService(userStorage,
+                new NdjsonImporter(JsonMapper.builder().findAndAddModules().build()),
+                mock(ObjectProvider.class), mock(FriendshipPathFinder.class), 500);
+    }
+
+    @Test
+    public void testImportMillionUsers() {
+        long start = System.nanoTime();
+        ImportReportDTO report = userService.importUsers(generateUsers());
+        long nanos = System.nanoTime() - start;
+
+        double rate = report.getImported() * 1e9 / nanos;
+        log.info("Импорт пользователей: {} за {} мс, {} пользователей/с",
+                report.getImported(), nanos / 1_000_000, Math.round(rate));
+        assertThat(report.getImported()).isEqualTo(USERS);
+        assertThat(report.getFailed()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Long.class)).isEqualTo(USERS);
+        assertThat(rate).isGreaterThanOrEqualTo(20_000);
+    }
+
+    private static InputStream generateUsers() {
+        return new SequenceInputStream(new Enumeration<>() {
+            private int next = 1;
+
+            @Override
+            public boolean hasMoreElements() {
+                return next <= USERS + 1;
+            }
+
+            @Override
+            public InputStream nextElement() {
+                int id = next++;
+                // последняя строка повторяет login первой и должна попасть в отчёт об ошибках
+                String login = id > USERS ? "user1" : "user" + id;
+                String line = "{\"login\":\"" + login + "\",\"email\":\"user" + id + "@test.com\","
+                        + "\"name\":\"User " + id + "\",\"birthday\":\"1990-01-01\"}\n";
+                return new ByteArrayInputStream(line.getBytes(StandardCharsets.UTF_8));
+            }
+        });
+    }
+}
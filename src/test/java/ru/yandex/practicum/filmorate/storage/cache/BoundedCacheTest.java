@@ -0,0 +1,79 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoundedCacheTest {
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        BoundedCache<Long, String> cache = new BoundedCache<>("test", 2, 60);
+
+        cache.put(1L, "one", cache.stamp());
+        cache.put(2L, "two", cache.stamp());
+        assertThat(cache.get(1L)).isEqualTo("one");
+        cache.put(3L, "three", cache.stamp());
+
+        assertThat(cache.get(2L)).isNull();
+        assertThat(cache.get(1L)).isEqualTo("one");
+        assertThat(cache.get(3L)).isEqualTo("three");
+        assertThat(cache.stats())
+                .extracting(CacheStats::size, CacheStats::hits, CacheStats::misses, CacheStats::evictions)
+                .containsExactly(2, 3L, 1L, 1L);
+    }
+
+    @Test
+    public void testInvalidationDropsConcurrentRead() {
+        BoundedCache<Long, String> cache = new BoundedCache<>("test", 10, 60);
+
+        long stamp = cache.stamp();
+        cache.invalidate(1L);
+        cache.put(1L, "stale", stamp);
+        cache.put(2L, "two", stamp);
+
+        assertThat(cache.get(1L)).isNull();
+        assertThat(cache.get(2L)).isEqualTo("two");
+    }
+
+    @Test
+    public void testEvictedInvalidationRaisesFloor() {
+        BoundedCache<Long, String> cache = new BoundedCache<>("test", 1, 60);
+
+        long stamp = cache.stamp();
+        cache.invalidate(1L);
+        cache.invalidate(2L);
+        cache.put(1L, "stale", stamp);
+        cache.put(3L, "three", stamp);
+
+        assertThat(cache.get(1L)).isNull();
+        assertThat(cache.get(3L)).isNull();
+
+        cache.put(3L, "three", cache.stamp());
+        assertThat(cache.get(3L)).isEqualTo("three");
+    }
+
+    @Test
+    public void testExpiredEntryIsEvicted() {
+        BoundedCache<Long, String> cache = new BoundedCache<>("test", 10, 0);
+
+        cache.put(1L, "one", cache.stamp());
+
+        assertThat(cache.get(1L)).isNull();
+        assertThat(cache.stats().evictions()).isEqualTo(1L);
+    }
+
+    @Test
+    public void testEvictsByWeight() {
+        BoundedCache<Long, String> cache = new BoundedCache<>("test", 10, 10, 60, value -> value.length());
+
+        cache.put(1L, "12345", cache.stamp());
+        cache.put(2L, "1234", cache.stamp());
+        assertThat(cache.stats().memoryBytes()).isEqualTo(9L);
+
+        cache.put(3L, "12", cache.stamp());
+
+        assertThat(cache.get(1L)).isNull();
+        assertThat(cache.stats().memoryBytes()).isEqualTo(6L);
+    }
+}
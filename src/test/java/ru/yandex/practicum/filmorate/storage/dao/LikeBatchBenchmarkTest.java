@@ -0,0 +1,79 @@
+package ru.yandex.practicum.filmorate.storage.dao;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.storage.mapper.FilmRowMapper;
+import ru.yandex.practicum.filmorate.storage.mapper.GenreRowMapper;
+import ru.yandex.practicum.filmorate.storage.mapper.RatingRowMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сравнение пропускной способности: лайки по одному против пакетной записи.
+ * Запуск: mvn test -P benchmark
+ */
+@Slf4j
+@Tag("benchmark")
+@JdbcTest
+@AutoConfigureTestDatabase
+@Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD, scripts = {"classpath:schema.sql", "classpath:data.sql"})
+class LikeBatchBenchmarkTest {
+    private static final int FILMS = 100;
+    private static final int USERS = 100;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    private FilmDbStorage filmStorage;
+
+    @BeforeEach
+    void setUp() {
+        filmStorage = new FilmDbStorage(jdbcTemplate, new FilmRowMapper(), new RatingRowMapper(), new GenreRowMapper());
+        for (int i = 1; i <= FILMS; i++) {
+            jdbcTemplate.update("INSERT INTO films(title) VALUES(?)", "Film " + i);
+        }
+        for (int i = 1; i <= USERS; i++) {
+            jdbcTemplate.update("INSERT INTO users(login, email) VALUES(?, ?)", "user" + i, "user" + i + "@test.com");
+        }
+    }
+
+    @Test
+    public void testBatchThroughput() {
+        List<Like> single = likesForUsers(1, USERS / 2);
+        List<Like> batch = likesForUsers(USERS / 2 + 1, USERS);
+
+        long singleStart = System.nanoTime();
+        single.forEach(like -> filmStorage.setLikeToDb(like.getFilmId(), like.getUserId()));
+        long singleNanos = System.nanoTime() - singleStart;
+
+        long batchStart = System.nanoTime();
+        filmStorage.setLikesToDb(batch);
+        long batchNanos = System.nanoTime() - batchStart;
+
+        double singleRate = single.size() * 1e9 / singleNanos;
+        double batchRate = batch.size() * 1e9 / batchNanos;
+        log.info("По одному: {} лайков/с, пакетом: {} лайков/с", Math.round(singleRate), Math.round(batchRate));
+        assertThat(batchRate).isGreaterThanOrEqualTo(singleRate * 10);
+        assertThat(filmStorage.reconcileLikeCounts(FILMS)).isZero();
+    }
+
+    private static List<Like> likesForUsers(int fromUser, int toUser) {
+        List<Like> likes = new ArrayList<>();
+        for (long userId = fromUser; userId <= toUser; userId++) {
+            for (long filmId = 1; filmId <= FILMS; filmId++) {
+                likes.add(new Like(filmId, userId));
+            }
+        }
+        return likes;
+    }
+}